@@ -0,0 +1,43 @@
+package ci.miage.prg.list.bench;
+
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.ChainedOptionsBuilder;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Lancer les benchmarks JMH ; les résultats sont écrits au format JSON dans
+ * jmh-result.json, sauf si -rf / -rff sont donnés sur la ligne de commande.
+ *
+ * <pre>
+ * mvn -B package
+ * java -jar benchmarks/target/benchmarks.jar [options JMH]
+ * </pre>
+ *
+ * @author Yeo François De Sales Gneneman <foursov@univ-rennes.fr>
+ * @author Yapi Yapo <foursov@univ-rennes.fr>
+ * @version 1.0
+ * @since 2026-10-17
+ */
+public class BenchmarkMain {
+
+	private static final String RESULT_FILE = "jmh-result.json";
+
+	public static void main(String[] args) throws RunnerException, CommandLineOptionException {
+		CommandLineOptions commandLine = new CommandLineOptions(args);
+		ChainedOptionsBuilder options = new OptionsBuilder().parent(commandLine);
+		if (!commandLine.getResultFormat().hasValue()) {
+			options.resultFormat(ResultFormatType.JSON);
+		}
+		if (!commandLine.getResult().hasValue()) {
+			options.result(RESULT_FILE);
+		}
+		if (commandLine.getIncludes().isEmpty()) {
+			options.include(BenchmarkMain.class.getPackageName() + ".*");
+		}
+		new Runner(options.build()).run();
+	}
+}
@@ -0,0 +1,104 @@
+package ci.miage.prg.list.bench;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import ci.miage.prg.list.ConcurrentMySet;
+import ci.miage.prg.list.MySet;
+
+/**
+ * Mesures JMH de ConcurrentMySet partagé entre plusieurs fils : écrivains
+ * seuls, puis écrivains et lecteurs mêlés. Les groupes copyOnWrite et inPlace
+ * comparent, sur un seul fil, une écriture ponctuelle de ConcurrentMySet (copie
+ * du sous-ensemble et nouveau nœud de la table) à la même écriture faite sur
+ * place dans un MySet.
+ *
+ * @author Yeo François De Sales Gneneman <foursov@univ-rennes.fr>
+ * @author Yapi Yapo <foursov@univ-rennes.fr>
+ * @version 1.0
+ * @since 2026-10-17
+ */
+
+@State(Scope.Group)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ConcurrentMySetBenchmark {
+
+	/**
+	 * Valeurs tirées dans [0, VALUES).
+	 */
+	private static final int VALUES = 1 << 20;
+
+	private ConcurrentMySet set;
+	private MySet plain;
+
+	@Setup(Level.Iteration)
+	public void setUp() {
+		set = new ConcurrentMySet();
+		plain = new MySet();
+		for (int value = 0; value < VALUES; value += 3) {
+			set.addNumber(value);
+			plain.addNumber(value);
+		}
+	}
+
+	@Benchmark
+	@Group("writers")
+	@GroupThreads(4)
+	public void addRemove() {
+		int value = ThreadLocalRandom.current().nextInt(VALUES);
+		set.addNumber(value);
+		set.removeNumber(value);
+	}
+
+	@Benchmark
+	@Group("mixed")
+	@GroupThreads(1)
+	public void mixedWriter() {
+		int value = ThreadLocalRandom.current().nextInt(VALUES);
+		set.addNumber(value);
+		set.removeNumber(value);
+	}
+
+	@Benchmark
+	@Group("mixed")
+	@GroupThreads(3)
+	public boolean mixedReader() {
+		return set.containsValue(ThreadLocalRandom.current().nextInt(VALUES));
+	}
+
+	@Benchmark
+	@Group("copyOnWrite")
+	@GroupThreads(1)
+	public void copyOnWrite() {
+		int value = ThreadLocalRandom.current().nextInt(VALUES);
+		set.addNumber(value);
+		set.removeNumber(value);
+	}
+
+	@Benchmark
+	@Group("inPlace")
+	@GroupThreads(1)
+	public void inPlace() {
+		int value = ThreadLocalRandom.current().nextInt(VALUES);
+		plain.addNumber(value);
+		plain.removeNumber(value);
+	}
+}
@@ -0,0 +1,79 @@
+package ci.miage.prg.list.bench;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import ci.miage.prg.list.DurableMySet;
+
+/**
+ * Mesures JMH du coût d'une modification journalisée de DurableMySet selon la
+ * taille des lots validés ensemble (batchSize = 1 : une écriture forcée par
+ * modification).
+ *
+ * @author Yeo François De Sales Gneneman <foursov@univ-rennes.fr>
+ * @author Yapi Yapo <foursov@univ-rennes.fr>
+ * @version 1.0
+ * @since 2026-10-17
+ */
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DurableMySetBenchmark {
+
+	/**
+	 * Valeurs tirées dans [0, VALUES).
+	 */
+	private static final int VALUES = 1 << 20;
+
+	@Param({ "1", "64", "1024" })
+	public int batchSize;
+
+	private Path directory;
+	private DurableMySet set;
+
+	@Setup(Level.Trial)
+	public void setUp() throws IOException {
+		directory = Files.createTempDirectory("bench-durable");
+		set = DurableMySet.open(directory, batchSize, DurableMySet.DEFAULT_CHECKPOINT_BYTES);
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown() throws IOException {
+		set.close();
+		try (Stream<Path> files = Files.list(directory)) {
+			for (Path file : (Iterable<Path>) files::iterator) {
+				Files.delete(file);
+			}
+		}
+		Files.delete(directory);
+	}
+
+	@Benchmark
+	public void addRemove() throws IOException {
+		int value = ThreadLocalRandom.current().nextInt(VALUES);
+		set.addNumber(value);
+		set.removeNumber(value);
+	}
+}
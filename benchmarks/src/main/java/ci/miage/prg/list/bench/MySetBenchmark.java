@@ -0,0 +1,341 @@
+package ci.miage.prg.list.bench;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.PrimitiveIterator;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import ci.miage.prg.list.MySet;
+import ci.miage.prg.list.MySetCache;
+import ci.miage.prg.list.MySetExpression;
+import ci.miage.prg.list.MySetSnapshot;
+
+/**
+ * Mesures JMH des opérations de MySet sur trois répartitions des valeurs,
+ * inspirées des fichiers f*.ens et test-*.ens :
+ * <ul>
+ * <li>SPARSE : quelques valeurs isolées réparties sur tous les rangs (f0.ens)
+ * ;</li>
+ * <li>DENSE : une valeur sur deux de tout le domaine ;</li>
+ * <li>CLUSTERED : quelques intervalles de valeurs consécutives
+ * (test-u01.ens).</li>
+ * </ul>
+ * Les opérations ensemblistes modifient this : elles sont mesurées sur une
+ * copie de l'ensemble de base, dont le coût seul est donné par copy().
+ *
+ * @author Yeo François De Sales Gneneman <foursov@univ-rennes.fr>
+ * @author Yapi Yapo <foursov@univ-rennes.fr>
+ * @version 1.0
+ * @since 2026-10-17
+ */
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MySetBenchmark {
+
+	/**
+	 * Répartition des valeurs des ensembles mesurés.
+	 */
+	public enum Distribution {
+		SPARSE, DENSE, CLUSTERED
+	}
+
+	/**
+	 * Nombre de valeurs testées par les opérations ponctuelles.
+	 */
+	private static final int PROBES = 1024;
+	private static final int MAX_VALUE = 32767;
+
+	@Param({ "SPARSE", "DENSE", "CLUSTERED" })
+	public Distribution distribution;
+
+	private MySet base;
+	private MySet other;
+	private MySet equal;
+	private int[] probes;
+	/**
+	 * Ensemble des valeurs de probes, petit opérande d'intersection.
+	 */
+	private MySet probeSet;
+	private final MySetCache cache = new MySetCache();
+	private Path textFile;
+	private Path binaryFile;
+
+	@Setup(Level.Trial)
+	public void setUp() throws IOException {
+		Random random = new Random(20231011);
+		base = generate(random);
+		other = generate(random);
+		equal = copy(base);
+		probes = new int[PROBES];
+		for (int i = 0; i < PROBES; ++i) {
+			probes[i] = random.nextInt(MAX_VALUE + 1);
+		}
+		probeSet = new MySet();
+		for (int probe : probes) {
+			probeSet.addNumber(probe);
+		}
+		textFile = Files.createTempFile("bench", ".ens");
+		base.save(textFile);
+		binaryFile = Files.createTempFile("bench", ".bin");
+		base.saveBinary(binaryFile);
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown() throws IOException {
+		Files.deleteIfExists(textFile);
+		Files.deleteIfExists(binaryFile);
+	}
+
+	/**
+	 * @return ensemble de valeurs tirées selon distribution
+	 */
+	private MySet generate(Random random) {
+		MySet set = new MySet();
+		switch (distribution) {
+		case SPARSE:
+			for (int i = 0; i < 64; ++i) {
+				set.addNumber(random.nextInt(MAX_VALUE + 1));
+			}
+			break;
+		case DENSE:
+			for (int v = 0; v <= MAX_VALUE; ++v) {
+				if (random.nextBoolean()) {
+					set.addNumber(v);
+				}
+			}
+			break;
+		case CLUSTERED:
+			for (int c = 0; c < 8; ++c) {
+				int start = random.nextInt(MAX_VALUE - 1024);
+				int length = 64 + random.nextInt(960);
+				for (int v = start; v < start + length; ++v) {
+					set.addNumber(v);
+				}
+			}
+			break;
+		default:
+		}
+		return set;
+	}
+
+	private static MySet copy(MySet set) {
+		MySet result = new MySet();
+		result.union(set);
+		return result;
+	}
+
+	@Benchmark
+	public MySet copy() {
+		return copy(base);
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(PROBES)
+	public MySet addNumber() {
+		MySet set = new MySet();
+		for (int value : probes) {
+			set.addNumber(value);
+		}
+		return set;
+	}
+
+	@Benchmark
+	public MySet addRange() {
+		MySet set = new MySet();
+		set.addRange(0, 9999);
+		return set;
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(PROBES)
+	public void containsValue(Blackhole blackhole) {
+		for (int value : probes) {
+			blackhole.consume(base.containsValue(value));
+		}
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(PROBES)
+	public MySet removeNumber() {
+		MySet set = copy(base);
+		for (int value : probes) {
+			set.removeNumber(value);
+		}
+		return set;
+	}
+
+	@Benchmark
+	public int size() {
+		return base.size();
+	}
+
+	@Benchmark
+	public MySet union() {
+		MySet set = copy(base);
+		set.union(other);
+		return set;
+	}
+
+	@Benchmark
+	public MySet intersection() {
+		MySet set = copy(base);
+		set.intersection(other);
+		return set;
+	}
+
+	@Benchmark
+	public MySet difference() {
+		MySet set = copy(base);
+		set.difference(other);
+		return set;
+	}
+
+	@Benchmark
+	public MySet symmetricDifference() {
+		MySet set = copy(base);
+		set.symmetricDifference(other);
+		return set;
+	}
+
+	@Benchmark
+	public MySet or() {
+		return base.or(other);
+	}
+
+	@Benchmark
+	public MySet and() {
+		return base.and(other);
+	}
+
+	@Benchmark
+	public MySet andNot() {
+		return base.andNot(other);
+	}
+
+	@Benchmark
+	public MySet xor() {
+		return base.xor(other);
+	}
+
+	/**
+	 * (base ∪ other) ∩ probeSet \ equal, chaque étape construisant son résultat.
+	 */
+	@Benchmark
+	public MySet eagerExpression() {
+		return base.or(other).and(probeSet).andNot(equal);
+	}
+
+	/**
+	 * Même expression, évaluée rang par rang par MySetExpression.
+	 */
+	@Benchmark
+	public MySet lazyExpression() {
+		return MySetExpression.of(base).union(other).intersection(probeSet).difference(equal).evaluate();
+	}
+
+	/**
+	 * Intersection reprise du cache (toutes les mesures après la première sont
+	 * des succès).
+	 */
+	@Benchmark
+	public MySetSnapshot cachedIntersection() {
+		return cache.intersection(base, other);
+	}
+
+	@Benchmark
+	public long intersectionSize() {
+		return base.intersectionSize(other);
+	}
+
+	@Benchmark
+	public boolean intersects() {
+		return base.intersects(other);
+	}
+
+	@Benchmark
+	public long valueIterator() {
+		long sum = 0;
+		for (PrimitiveIterator.OfInt it = base.valueIterator(); it.hasNext();) {
+			sum += it.nextInt();
+		}
+		return sum;
+	}
+
+	@Benchmark
+	public void forEachValue(Blackhole blackhole) {
+		base.forEach(blackhole::consume);
+	}
+
+	@Benchmark
+	public long streamSum() {
+		return base.stream().asLongStream().sum();
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(PROBES)
+	public void rank(Blackhole blackhole) {
+		for (int value : probes) {
+			blackhole.consume(base.rank(value));
+		}
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(PROBES)
+	public void ceiling(Blackhole blackhole) {
+		for (int value : probes) {
+			blackhole.consume(base.ceiling(value));
+		}
+	}
+
+	@Benchmark
+	public boolean equalsSame() {
+		return base.equals(equal);
+	}
+
+	@Benchmark
+	public boolean isIncludedIn() {
+		return base.isIncludedIn(equal);
+	}
+
+	@Benchmark
+	public String toStringSet() {
+		return base.toString();
+	}
+
+	@Benchmark
+	public MySet restoreText() throws IOException {
+		MySet set = new MySet();
+		set.restore(textFile);
+		return set;
+	}
+
+	@Benchmark
+	public MySet restoreBinary() throws IOException {
+		MySet set = new MySet();
+		set.restore(binaryFile);
+		return set;
+	}
+}
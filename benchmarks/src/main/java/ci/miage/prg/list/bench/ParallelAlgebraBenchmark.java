@@ -0,0 +1,116 @@
+package ci.miage.prg.list.bench;
+
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import ci.miage.prg.list.MySet;
+
+/**
+ * Mesures JMH des variantes parallèles des opérations ensemblistes, selon le
+ * nombre de fils du pool, sur deux ensembles d'environ un million de rangs
+ * (threads = 1 donne la version séquentielle).
+ *
+ * @author Yeo François De Sales Gneneman <foursov@univ-rennes.fr>
+ * @author Yapi Yapo <foursov@univ-rennes.fr>
+ * @version 1.0
+ * @since 2026-10-17
+ */
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ParallelAlgebraBenchmark {
+
+	/**
+	 * Nombre de rangs couverts par les ensembles mesurés.
+	 */
+	private static final int RANKS = 1 << 20;
+
+	@Param({ "1", "2", "4", "8", "16", "32" })
+	public int threads;
+
+	private ForkJoinPool pool;
+	private MySet base;
+	private MySet other;
+
+	@Setup(Level.Trial)
+	public void setUp() {
+		pool = new ForkJoinPool(threads);
+		Random random = new Random(20231011);
+		base = generate(random);
+		other = generate(random);
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown() {
+		pool.shutdown();
+	}
+
+	/**
+	 * @return ensemble d'environ une valeur sur 128, en ordre croissant
+	 */
+	private static MySet generate(Random random) {
+		MySet set = new MySet();
+		for (int value = 0; value >= 0 && value < RANKS * 256; value += 1 + random.nextInt(256)) {
+			set.addNumber(value);
+		}
+		return set;
+	}
+
+	private MySet copy() {
+		MySet result = new MySet();
+		result.union(base);
+		return result;
+	}
+
+	@Benchmark
+	public MySet copyBaseline() {
+		return copy();
+	}
+
+	@Benchmark
+	public MySet union() {
+		MySet set = copy();
+		set.unionParallel(other, pool);
+		return set;
+	}
+
+	@Benchmark
+	public MySet intersection() {
+		MySet set = copy();
+		set.intersectionParallel(other, pool);
+		return set;
+	}
+
+	@Benchmark
+	public MySet difference() {
+		MySet set = copy();
+		set.differenceParallel(other, pool);
+		return set;
+	}
+
+	@Benchmark
+	public MySet symmetricDifference() {
+		MySet set = copy();
+		set.symmetricDifferenceParallel(other, pool);
+		return set;
+	}
+}
@@ -0,0 +1,188 @@
+package ci.miage.prg.list;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+
+import ci.miage.prg.list_util.Iterator;
+
+/**
+ * Format binaire des ensembles MySet :
+ * <ul>
+ * <li>en-tête de 16 octets : "MSET", version, cardinal (plafonné à
+ * Integer.MAX_VALUE), nombre n de sous-ensembles ;</li>
+ * <li>répertoire des rangs : n entiers de 4 octets, dans l'ordre croissant
+ * ;</li>
+ * <li>n cartes de bits de 32 octets (quatre mots de 64 bits), dans l'ordre du
+ * répertoire.</li>
+ * </ul>
+ * Tous les entiers sont écrits en gros-boutiste. La position de la carte d'un
+ * rang se déduit de sa place dans le répertoire, ce qui permet de lire un seul
+ * rang sans décoder le reste du fichier.
+ *
+ * @author Yeo François De Sales Gneneman <foursov@univ-rennes.fr>
+ * @author Yapi Yapo <foursov@univ-rennes.fr>
+ * @version 1.0
+ * @since 2026-10-17
+ */
+
+final class BinaryFormat {
+
+	/**
+	 * Signature des fichiers binaires.
+	 */
+	static final int MAGIC = ('M' << 24) | ('S' << 16) | ('E' << 8) | 'T';
+	static final int VERSION = 1;
+	static final int HEADER_SIZE = 16;
+	static final int RANK_SIZE = 4;
+	static final int BITMAP_SIZE = SmallBitmap.WORDS * 8;
+
+	private BinaryFormat() {
+	}
+
+	/**
+	 * @param channel fichier à tester
+	 * @return true si le fichier commence par la signature du format binaire
+	 * @throws IOException en cas d'erreur de lecture
+	 */
+	static boolean isBinary(FileChannel channel) throws IOException {
+		return channel.size() >= 4 && readAt(channel, 0, 4).getInt(0) == MAGIC;
+	}
+
+	/**
+	 * Écrire set dans channel (qui doit être vide et ouvert en lecture et
+	 * écriture).
+	 *
+	 * @param set     ensemble à écrire
+	 * @param channel fichier de destination
+	 * @throws IOException en cas d'erreur d'écriture
+	 */
+	static void write(MySet set, FileChannel channel) throws IOException {
+		int count = 0;
+		long cardinality = 0;
+		Iterator<SubSet> it = set.iterator();
+		while (!it.isOnFlag()) {
+			++count;
+			cardinality += it.getValue().set.size();
+			it.goForward();
+		}
+		long size = HEADER_SIZE + (long) count * (RANK_SIZE + BITMAP_SIZE);
+		MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+		buffer.putInt(MAGIC).putInt(VERSION).putInt((int) Math.min(cardinality, Integer.MAX_VALUE)).putInt(count);
+		int bitmaps = HEADER_SIZE + count * RANK_SIZE;
+		long[] words = new long[SmallBitmap.WORDS];
+		it = set.iterator();
+		for (int i = 0; i < count; ++i) {
+			SubSet subSet = it.getValue();
+			buffer.putInt(HEADER_SIZE + i * RANK_SIZE, subSet.rank);
+			int offset = bitmaps + i * BITMAP_SIZE;
+			subSet.set.copyWords(words, 0);
+			for (int w = 0; w < SmallBitmap.WORDS; ++w) {
+				buffer.putLong(offset + w * 8, words[w]);
+			}
+			it.goForward();
+		}
+		buffer.force();
+	}
+
+	/**
+	 * Ajouter à set (vide) les sous-ensembles lus dans channel, en une seule
+	 * projection du fichier.
+	 *
+	 * @param set     ensemble à remplir
+	 * @param channel fichier source
+	 * @throws IOException si le fichier est illisible ou mal formé
+	 */
+	static void read(MySet set, FileChannel channel) throws IOException {
+		MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+		int count = readHeader(buffer, channel.size());
+		int bitmaps = HEADER_SIZE + count * RANK_SIZE;
+		long previous = Long.MIN_VALUE;
+		long[] words = new long[SmallBitmap.WORDS];
+		for (int i = 0; i < count; ++i) {
+			int rank = buffer.getInt(HEADER_SIZE + i * RANK_SIZE);
+			if (rank <= previous || rank < MySet.MIN_RANG || rank > MySet.MAX_RANG) {
+				throw new IOException("fichier binaire invalide : rang " + rank);
+			}
+			previous = rank;
+			int offset = bitmaps + i * BITMAP_SIZE;
+			for (int w = 0; w < SmallBitmap.WORDS; ++w) {
+				words[w] = buffer.getLong(offset + w * 8);
+			}
+			SmallBitmap bitmap = SmallBitmap.fromWords(words, 0);
+			if (!bitmap.isEmpty()) {
+				set.append(new SubSet(rank, bitmap));
+			}
+		}
+	}
+
+	/**
+	 * Lire le seul sous-ensemble de rang rank, par recherche dichotomique dans le
+	 * répertoire.
+	 *
+	 * @param channel fichier source
+	 * @param rank    rang cherché
+	 * @return sous-ensemble de rang rank, ou null s'il est absent
+	 * @throws IOException si le fichier est illisible ou mal formé
+	 */
+	static SubSet readSubSet(FileChannel channel, int rank) throws IOException {
+		ByteBuffer header = readAt(channel, 0, HEADER_SIZE);
+		int count = readHeader(header, channel.size());
+		int low = 0;
+		int high = count - 1;
+		while (low <= high) {
+			int middle = (low + high) >>> 1;
+			int current = readAt(channel, HEADER_SIZE + (long) middle * RANK_SIZE, RANK_SIZE).getInt(0);
+			if (current < rank) {
+				low = middle + 1;
+			} else if (current > rank) {
+				high = middle - 1;
+			} else {
+				long offset = HEADER_SIZE + (long) count * RANK_SIZE + (long) middle * BITMAP_SIZE;
+				ByteBuffer bytes = readAt(channel, offset, BITMAP_SIZE);
+				long[] words = new long[SmallBitmap.WORDS];
+				for (int w = 0; w < SmallBitmap.WORDS; ++w) {
+					words[w] = bytes.getLong(w * 8);
+				}
+				return new SubSet(rank, SmallBitmap.fromWords(words, 0));
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * Vérifier l'en-tête placé au début de buffer.
+	 *
+	 * @param buffer octets du fichier (au moins l'en-tête)
+	 * @param size   taille du fichier
+	 * @return nombre de sous-ensembles
+	 * @throws IOException si l'en-tête est invalide
+	 */
+	private static int readHeader(ByteBuffer buffer, long size) throws IOException {
+		if (size < HEADER_SIZE || buffer.getInt(0) != MAGIC) {
+			throw new IOException("fichier binaire invalide : signature absente");
+		}
+		if (buffer.getInt(4) != VERSION) {
+			throw new IOException("fichier binaire invalide : version " + buffer.getInt(4));
+		}
+		int count = buffer.getInt(12);
+		if (count < 0 || size != HEADER_SIZE + (long) count * (RANK_SIZE + BITMAP_SIZE)) {
+			throw new IOException("fichier binaire invalide : taille incorrecte");
+		}
+		return count;
+	}
+
+	/**
+	 * @return les length octets de channel à partir de position
+	 */
+	private static ByteBuffer readAt(FileChannel channel, long position, int length) throws IOException {
+		ByteBuffer buffer = ByteBuffer.allocate(length);
+		while (buffer.hasRemaining()) {
+			if (channel.read(buffer, position + buffer.position()) < 0) {
+				throw new IOException("fichier binaire tronque");
+			}
+		}
+		return buffer;
+	}
+}
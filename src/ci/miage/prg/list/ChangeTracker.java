@@ -0,0 +1,101 @@
+package ci.miage.prg.list;
+
+import java.util.Arrays;
+import java.util.HashMap;
+
+/**
+ * Suivi des rangs modifiés d'un MySet depuis un point de reprise. Au premier
+ * changement d'un rang, le sous-ensemble qu'il avait alors (ou null s'il était
+ * absent) est retenu et marqué partagé : l'ensemble le copiera avant de le
+ * modifier, si bien qu'il reste tel qu'au point de reprise. Les changements
+ * se déduisent ensuite en comparant, rang modifié par rang modifié, ce
+ * sous-ensemble d'origine et le sous-ensemble actuel.
+ *
+ * @author Yeo François De Sales Gneneman <foursov@univ-rennes.fr>
+ * @author Yapi Yapo <foursov@univ-rennes.fr>
+ * @version 1.0
+ * @since 2026-10-17
+ */
+
+final class ChangeTracker {
+
+	/**
+	 * Sous-ensemble de chaque rang modifié au point de reprise (null s'il était
+	 * absent).
+	 */
+	private final HashMap<Integer, SubSet> origins = new HashMap<>();
+	/**
+	 * Vrai si la liste a été modifiée hors de MySet : les rangs touchés ne sont
+	 * plus connus.
+	 */
+	private boolean lost;
+
+	/**
+	 * Noter que le rang rank va changer, s'il n'a pas déjà changé.
+	 *
+	 * @param rank   rang qui va changer
+	 * @param origin sous-ensemble actuel de ce rang, null s'il est absent
+	 */
+	void touch(int rank, SubSet origin) {
+		if (!origins.containsKey(rank)) {
+			if (origin != null) {
+				origin.shared = true;
+			}
+			origins.put(rank, origin);
+		}
+	}
+
+	/**
+	 * Noter que la liste a été modifiée hors de MySet.
+	 */
+	void lose() {
+		lost = true;
+	}
+
+	/**
+	 * @param ranks table des rangs actuelle de l'ensemble suivi
+	 * @return changements depuis le point de reprise
+	 * @throws IllegalStateException si la liste a été modifiée hors de MySet
+	 */
+	MySetDelta delta(RankIndex ranks) {
+		if (lost) {
+			throw new IllegalStateException("liste modifiee hors de MySet depuis le point de reprise");
+		}
+		int[] touched = new int[origins.size()];
+		int n = 0;
+		for (int rank : origins.keySet()) {
+			touched[n++] = rank;
+		}
+		Arrays.sort(touched);
+		MySet added = new MySet();
+		MySet removed = new MySet();
+		for (int rank : touched) {
+			SubSet origin = origins.get(rank);
+			SubSet current = ranks.get(rank);
+			addDifference(added, current, origin);
+			addDifference(removed, origin, current);
+		}
+		return new MySetDelta(added, removed);
+	}
+
+	/**
+	 * Ajouter à la fin de result le sous-ensemble a \ b (a et b de même rang,
+	 * éventuellement null).
+	 */
+	private static void addDifference(MySet result, SubSet a, SubSet b) {
+		if (a == null || a == b) {
+			return;
+		}
+		SubSet difference;
+		if (b == null) {
+			a.shared = true;
+			difference = a;
+		} else {
+			difference = a.copyOf();
+			difference.set.difference(b.set);
+		}
+		if (!difference.set.isEmpty()) {
+			result.append(difference);
+		}
+	}
+}
@@ -0,0 +1,351 @@
+package ci.miage.prg.list;
+
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+import ci.miage.prg.list_util.Iterator;
+
+/**
+ * Ensemble d'entiers utilisable par plusieurs fils à la fois. Les
+ * sous-ensembles sont rangés par rang dans une table concurrente triée ; un
+ * sous-ensemble publié n'est plus jamais modifié (il est marqué partagé), toute
+ * modification en publie une copie. Les lectures ne prennent donc aucun verrou.
+ * Ce choix a un prix : chaque ajout ou retrait effectif copie le sous-ensemble
+ * entier (carte de bits ou tableau) et remplace son nœud dans la table, là où
+ * MySet modifie le sous-ensemble sur place (cf ConcurrentMySetBenchmark,
+ * groupes copyOnWrite et inPlace). Le modifier sur place sous le verrou de sa
+ * tranche exposerait aux lecteurs sans verrou une carte en cours de
+ * changement de représentation.
+ * Les écritures sur un rang prennent le verrou de sa tranche (rang modulo le
+ * nombre de tranches, une puissance de deux) : des rangs voisins tombent sur
+ * des tranches différentes et ne se gênent pas, mais deux rangs distants d'un
+ * multiple du nombre de tranches (0 et 16 avec 16 tranches) partagent leur
+ * verrou et peuvent s'attendre.
+ * Les opérations ensemblistes et snapshot() prennent toutes les tranches, dans
+ * l'ordre : elles travaillent sur un état cohérent, et snapshot() comme les
+ * écritures ne voient une opération ensembliste qu'entière, avant ou après
+ * elle. Les lectures sans verrou (containsValue, size, isEmpty) ne sont en
+ * revanche cohérentes que rang par rang : pendant une opération ensembliste,
+ * elles peuvent voir certains rangs déjà remplacés et d'autres pas encore.
+ * Seul snapshot() donne à coup sûr le résultat entier d'une opération.
+ *
+ * @author Yeo François De Sales Gneneman <foursov@univ-rennes.fr>
+ * @author Yapi Yapo <foursov@univ-rennes.fr>
+ * @version 1.0
+ * @since 2026-10-17
+ */
+
+public class ConcurrentMySet {
+
+	/**
+	 * Nombre minimal de tranches de verrous.
+	 */
+	private static final int MIN_STRIPES = 16;
+
+	private final ConcurrentSkipListMap<Integer, SubSet> subSets = new ConcurrentSkipListMap<>();
+	private final ReentrantLock[] stripes;
+	private final LongAdder cardinality = new LongAdder();
+
+	/**
+	 * Ensemble vide, avec quatre tranches par processeur disponible.
+	 */
+	public ConcurrentMySet() {
+		this(4 * Runtime.getRuntime().availableProcessors());
+	}
+
+	/**
+	 * @param stripes nombre minimal de tranches de verrous (arrondi à la
+	 *                puissance de deux supérieure, au moins MIN_STRIPES)
+	 */
+	public ConcurrentMySet(int stripes) {
+		int count = Integer.highestOneBit(Math.max(MIN_STRIPES, stripes) - 1) << 1;
+		this.stripes = new ReentrantLock[count];
+		for (int i = 0; i < count; ++i) {
+			this.stripes[i] = new ReentrantLock();
+		}
+	}
+
+	/**
+	 * @param set ensemble dont les valeurs sont reprises (non modifié : ses
+	 *            sous-ensembles sont partagés, il les copiera avant de les
+	 *            modifier)
+	 */
+	public ConcurrentMySet(MySet set) {
+		this();
+		replace(set);
+	}
+
+	/**
+	 * @return verrou de la tranche de rang, partagé par tous les rangs de même
+	 *         reste modulo stripes.length
+	 */
+	private ReentrantLock stripe(int rang) {
+		return stripes[rang & (stripes.length - 1)];
+	}
+
+	private void lockAll() {
+		for (ReentrantLock lock : stripes) {
+			lock.lock();
+		}
+	}
+
+	private void unlockAll() {
+		for (int i = stripes.length - 1; i >= 0; --i) {
+			stripes[i].unlock();
+		}
+	}
+
+	/**
+	 * @param value valeur à tester
+	 * @return true si value appartient à this, false sinon (sans verrou)
+	 */
+	public boolean containsValue(int value) {
+		long start = Metrics.start();
+		SubSet subSet = subSets.get(value >> 8);
+		boolean result = subSet != null && subSet.set.contains(value & 0xFF);
+		Metrics.stop(MetricsSink.Operation.CONTAINS, start);
+		return result;
+	}
+
+	/**
+	 * Ajouter value à this.
+	 *
+	 * @param value valeur à ajouter
+	 */
+	public void addNumber(int value) {
+		long start = Metrics.start();
+		int rang = value >> 8;
+		int reste = value & 0xFF;
+		ReentrantLock lock = stripe(rang);
+		lock.lock();
+		try {
+			SubSet subSet = subSets.get(rang);
+			if (subSet == null || !subSet.set.contains(reste)) {
+				SubSet copy = subSet == null ? new SubSet(rang, new SmallBitmap()) : subSet.copyOf();
+				copy.set.add(reste);
+				copy.shared = true;
+				subSets.put(rang, copy);
+				cardinality.increment();
+				Metrics.subSetAllocated();
+			}
+		} finally {
+			lock.unlock();
+		}
+		Metrics.stop(MetricsSink.Operation.ADD, start);
+	}
+
+	/**
+	 * Retirer value de this.
+	 *
+	 * @param value valeur à retirer
+	 */
+	public void removeNumber(int value) {
+		long start = Metrics.start();
+		int rang = value >> 8;
+		int reste = value & 0xFF;
+		ReentrantLock lock = stripe(rang);
+		lock.lock();
+		try {
+			SubSet subSet = subSets.get(rang);
+			if (subSet != null && subSet.set.contains(reste)) {
+				if (subSet.set.size() == 1) {
+					subSets.remove(rang);
+					Metrics.subSetRemoved();
+				} else {
+					SubSet copy = subSet.copyOf();
+					copy.set.remove(reste);
+					copy.shared = true;
+					subSets.put(rang, copy);
+					Metrics.subSetAllocated();
+				}
+				cardinality.decrement();
+			}
+		} finally {
+			lock.unlock();
+		}
+		Metrics.stop(MetricsSink.Operation.REMOVE, start);
+	}
+
+	/**
+	 * @return cardinal de this (exact en l'absence d'écriture en cours),
+	 *         plafonné à Integer.MAX_VALUE
+	 */
+	public int size() {
+		return (int) Math.min(this.longSize(), Integer.MAX_VALUE);
+	}
+
+	/**
+	 * @return cardinal de this (exact en l'absence d'écriture en cours)
+	 */
+	public long longSize() {
+		return cardinality.sum();
+	}
+
+	/**
+	 * @return true si this est vide, false sinon
+	 */
+	public boolean isEmpty() {
+		return subSets.isEmpty();
+	}
+
+	/**
+	 * @return ensemble ordinaire de même contenu que this à un instant donné ;
+	 *         ses sous-ensembles sont partagés avec this (il les copie avant de
+	 *         les modifier)
+	 */
+	public MySet snapshot() {
+		lockAll();
+		try {
+			return copy();
+		} finally {
+			unlockAll();
+		}
+	}
+
+	/**
+	 * @return copie de this (toutes les tranches doivent être prises)
+	 */
+	private MySet copy() {
+		MySet result = new MySet();
+		for (SubSet subSet : subSets.values()) {
+			result.append(subSet);
+		}
+		return result;
+	}
+
+	/**
+	 * Remplacer le contenu de this par celui de set, dont les sous-ensembles sont
+	 * repris partagés (toutes les tranches doivent être prises, sauf pendant la
+	 * construction).
+	 */
+	private void replace(MySet set) {
+		Iterator<SubSet> it = set.iterator();
+		for (int rang : subSets.keySet()) {
+			while (it.getValue().rank < rang) {
+				it.goForward();
+			}
+			if (it.getValue().rank != rang) {
+				subSets.remove(rang);
+			}
+		}
+		for (it.restart(); !it.isOnFlag(); it.goForward()) {
+			SubSet subSet = it.getValue();
+			subSet.shared = true;
+			if (subSets.get(subSet.rank) != subSet) {
+				subSets.put(subSet.rank, subSet);
+			}
+		}
+		// un seul ajout : un lecteur sans verrou ne voit jamais de somme partielle
+		cardinality.add(set.longSize() - cardinality.sum());
+	}
+
+	/**
+	 * Effectuer operation entre this et set2 sur une copie de this prise sous
+	 * toutes les tranches, puis publier les sous-ensembles qui ont changé, rang
+	 * par rang (les lecteurs sans verrou peuvent voir la publication en cours).
+	 */
+	private void apply(MySet set2, ParallelAlgebra.Operation operation) {
+		lockAll();
+		try {
+			MySet set = copy();
+			switch (operation) {
+			case UNION:
+				set.union(set2);
+				break;
+			case INTERSECTION:
+				set.intersection(set2);
+				break;
+			case DIFFERENCE:
+				set.difference(set2);
+				break;
+			default:
+				set.symmetricDifference(set2);
+			}
+			replace(set);
+		} finally {
+			unlockAll();
+		}
+	}
+
+	/**
+	 * This devient l'union de this et set2.
+	 *
+	 * @param set2 deuxième ensemble (qui ne doit pas être modifié pendant
+	 *             l'opération)
+	 */
+	public void union(MySet set2) {
+		this.apply(set2, ParallelAlgebra.Operation.UNION);
+	}
+
+	/**
+	 * This devient l'intersection de this et set2.
+	 *
+	 * @param set2 deuxième ensemble (qui ne doit pas être modifié pendant
+	 *             l'opération)
+	 */
+	public void intersection(MySet set2) {
+		this.apply(set2, ParallelAlgebra.Operation.INTERSECTION);
+	}
+
+	/**
+	 * This devient la différence de this et set2.
+	 *
+	 * @param set2 deuxième ensemble (qui ne doit pas être modifié pendant
+	 *             l'opération)
+	 */
+	public void difference(MySet set2) {
+		this.apply(set2, ParallelAlgebra.Operation.DIFFERENCE);
+	}
+
+	/**
+	 * This devient la différence symétrique de this et set2.
+	 *
+	 * @param set2 deuxième ensemble (qui ne doit pas être modifié pendant
+	 *             l'opération)
+	 */
+	public void symmetricDifference(MySet set2) {
+		this.apply(set2, ParallelAlgebra.Operation.SYMMETRIC_DIFFERENCE);
+	}
+
+	/**
+	 * This devient l'union de this et d'un instantané de set2.
+	 *
+	 * @param set2 deuxième ensemble
+	 */
+	public void union(ConcurrentMySet set2) {
+		this.union(set2.snapshot());
+	}
+
+	/**
+	 * This devient l'intersection de this et d'un instantané de set2.
+	 *
+	 * @param set2 deuxième ensemble
+	 */
+	public void intersection(ConcurrentMySet set2) {
+		this.intersection(set2.snapshot());
+	}
+
+	/**
+	 * This devient la différence de this et d'un instantané de set2.
+	 *
+	 * @param set2 deuxième ensemble
+	 */
+	public void difference(ConcurrentMySet set2) {
+		this.difference(set2.snapshot());
+	}
+
+	/**
+	 * This devient la différence symétrique de this et d'un instantané de set2.
+	 *
+	 * @param set2 deuxième ensemble
+	 */
+	public void symmetricDifference(ConcurrentMySet set2) {
+		this.symmetricDifference(set2.snapshot());
+	}
+
+	@Override
+	public String toString() {
+		return snapshot().toString();
+	}
+}
@@ -0,0 +1,721 @@
+package ci.miage.prg.list;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.zip.CRC32;
+
+import ci.miage.prg.list_util.Iterator;
+
+/**
+ * Ensemble MySet persistant dans un répertoire, sous la forme d'un point de
+ * reprise (snapshot-N.bin, au format de saveBinary) et d'un journal des
+ * modifications faites depuis (log-N.wal).
+ * <ul>
+ * <li>Chaque modification effective est ajoutée au journal avant d'être
+ * appliquée en mémoire. Les enregistrements sont accumulés puis écrits et
+ * forcés sur disque ensemble (validation groupée) : tous les batchSize
+ * enregistrements, ou à l'appel de sync(). Un fil qui appelle sync() pendant
+ * qu'un autre force le journal attend, puis n'a plus rien à faire si ses
+ * enregistrements ont été écrits dans le même lot.</li>
+ * <li>checkpoint() écrit l'ensemble entier dans un fichier temporaire, le force
+ * sur disque puis le renomme atomiquement en snapshot-(N+1).bin ; le journal
+ * log-(N+1).wal repart vide et les fichiers de la génération N sont effacés.
+ * Un point de reprise est fait automatiquement quand le journal dépasse
+ * checkpointBytes octets.</li>
+ * <li>open() relit le point de reprise le plus récent, rejoue son journal et
+ * coupe celui-ci après le dernier enregistrement complet : un enregistrement
+ * interrompu par un arrêt brutal est ignoré.</li>
+ * </ul>
+ * Un enregistrement du journal est formé de sa longueur n (4 octets), de n
+ * octets (code de l'opération puis ses paramètres) et du CRC32 de ces n
+ * octets. Seules les modifications validées par sync() (ou par un lot complet)
+ * survivent à un arrêt brutal.
+ *
+ * @author Yeo François De Sales Gneneman <foursov@univ-rennes.fr>
+ * @author Yapi Yapo <foursov@univ-rennes.fr>
+ * @version 1.0
+ * @since 2026-10-17
+ */
+
+public final class DurableMySet implements Closeable {
+
+	/**
+	 * Nombre d'enregistrements par défaut d'un lot validé d'un seul coup.
+	 */
+	public static final int DEFAULT_BATCH_SIZE = 1 << 10;
+	/**
+	 * Taille par défaut du journal au-delà de laquelle un point de reprise est
+	 * fait.
+	 */
+	public static final int DEFAULT_CHECKPOINT_BYTES = 64 << 20;
+
+	private static final String SNAPSHOT_PREFIX = "snapshot-";
+	private static final String SNAPSHOT_SUFFIX = ".bin";
+	private static final String LOG_PREFIX = "log-";
+	private static final String LOG_SUFFIX = ".wal";
+	private static final String TEMPORARY_SUFFIX = ".tmp";
+
+	/**
+	 * Codes des enregistrements du journal.
+	 */
+	private static final byte ADD = 1;
+	private static final byte REMOVE = 2;
+	private static final byte ADD_RANGE = 3;
+	private static final byte REMOVE_RANGE = 4;
+	private static final byte UNION = 5;
+	private static final byte INTERSECTION = 6;
+	private static final byte DIFFERENCE = 7;
+	private static final byte SYMMETRIC_DIFFERENCE = 8;
+
+	/**
+	 * Longueur, code et CRC d'un enregistrement.
+	 */
+	private static final int RECORD_OVERHEAD = 4 + 1 + 4;
+	private static final int SUBSET_SIZE = BinaryFormat.RANK_SIZE + BinaryFormat.BITMAP_SIZE;
+
+	private final Path directory;
+	private final int batchSize;
+	private final int checkpointBytes;
+	/**
+	 * Pris par sync() et checkpoint() avant le moniteur de this : les
+	 * modifications continuent d'être accumulées pendant qu'un lot est forcé
+	 * sur disque.
+	 */
+	private final ReentrantLock commitLock = new ReentrantLock();
+	private final MySet set;
+	private final CRC32 crc = new CRC32();
+
+	// protégés par le moniteur de this
+	private ByteBuffer pending = ByteBuffer.allocate(1 << 12);
+	private int pendingRecords;
+	private long appended;
+	private IOException failure;
+	private boolean closed;
+
+	// protégés par commitLock
+	private long generation;
+	private FileChannel log;
+	private long logSize;
+	private long durable;
+
+	private DurableMySet(Path directory, int batchSize, int checkpointBytes) {
+		this.directory = directory;
+		this.batchSize = batchSize;
+		this.checkpointBytes = checkpointBytes;
+		this.set = new MySet();
+	}
+
+	/**
+	 * Ouvrir (ou créer) l'ensemble persistant du répertoire directory, avec les
+	 * réglages par défaut.
+	 *
+	 * @param directory répertoire de l'ensemble (créé s'il n'existe pas)
+	 * @return ensemble retrouvé dans son dernier état validé
+	 * @throws IOException si le répertoire est illisible ou un fichier mal formé
+	 */
+	public static DurableMySet open(Path directory) throws IOException {
+		return open(directory, DEFAULT_BATCH_SIZE, DEFAULT_CHECKPOINT_BYTES);
+	}
+
+	/**
+	 * Ouvrir (ou créer) l'ensemble persistant du répertoire directory.
+	 *
+	 * @param directory       répertoire de l'ensemble (créé s'il n'existe pas)
+	 * @param batchSize       nombre d'enregistrements au-delà duquel le journal
+	 *                        est validé sans attendre sync()
+	 * @param checkpointBytes taille du journal au-delà de laquelle un point de
+	 *                        reprise est fait
+	 * @return ensemble retrouvé dans son dernier état validé
+	 * @throws IOException si le répertoire est illisible ou un fichier mal formé
+	 */
+	public static DurableMySet open(Path directory, int batchSize, int checkpointBytes) throws IOException {
+		if (batchSize < 1 || checkpointBytes < 1) {
+			throw new IllegalArgumentException("batchSize et checkpointBytes doivent être positifs");
+		}
+		Files.createDirectories(directory);
+		DurableMySet result = new DurableMySet(directory, batchSize, checkpointBytes);
+		result.recover();
+		return result;
+	}
+
+	/**
+	 * Relire le dernier point de reprise et rejouer son journal, puis effacer
+	 * les fichiers des autres générations.
+	 */
+	private void recover() throws IOException {
+		long start = Metrics.start();
+		try {
+			generation = -1;
+			try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, SNAPSHOT_PREFIX + "*" + SNAPSHOT_SUFFIX)) {
+				for (Path file : files) {
+					generation = Math.max(generation, generationOf(file, SNAPSHOT_PREFIX, SNAPSHOT_SUFFIX));
+				}
+			}
+			if (generation < 0) {
+				generation = 0;
+			} else {
+				set.restore(snapshotFile(generation));
+			}
+			log = FileChannel.open(logFile(generation), StandardOpenOption.CREATE, StandardOpenOption.READ,
+					StandardOpenOption.WRITE);
+			logSize = replay(set, log);
+			log.truncate(logSize);
+			log.position(logSize);
+			log.force(true);
+			removeOtherGenerations();
+		} finally {
+			Metrics.stop(MetricsSink.Operation.RESTORE, start);
+		}
+	}
+
+	/**
+	 * @return numéro de génération lu dans le nom de file, -1 s'il est mal formé
+	 */
+	private static long generationOf(Path file, String prefix, String suffix) {
+		String name = file.getFileName().toString();
+		if (!name.startsWith(prefix) || !name.endsWith(suffix)) {
+			return -1;
+		}
+		try {
+			return Long.parseLong(name.substring(prefix.length(), name.length() - suffix.length()));
+		} catch (NumberFormatException e) {
+			return -1;
+		}
+	}
+
+	private Path snapshotFile(long n) {
+		return directory.resolve(SNAPSHOT_PREFIX + n + SNAPSHOT_SUFFIX);
+	}
+
+	private Path logFile(long n) {
+		return directory.resolve(LOG_PREFIX + n + LOG_SUFFIX);
+	}
+
+	/**
+	 * Effacer les points de reprise et journaux des générations autres que
+	 * generation, ainsi que les fichiers temporaires restés d'un arrêt brutal.
+	 */
+	private void removeOtherGenerations() throws IOException {
+		try (DirectoryStream<Path> files = Files.newDirectoryStream(directory)) {
+			for (Path file : files) {
+				String name = file.getFileName().toString();
+				long n = name.startsWith(SNAPSHOT_PREFIX) ? generationOf(file, SNAPSHOT_PREFIX, SNAPSHOT_SUFFIX)
+						: generationOf(file, LOG_PREFIX, LOG_SUFFIX);
+				if (name.endsWith(TEMPORARY_SUFFIX) && name.startsWith(SNAPSHOT_PREFIX)
+						|| n >= 0 && n != generation) {
+					Files.delete(file);
+				}
+			}
+		}
+		forceDirectory();
+	}
+
+	/**
+	 * Forcer sur disque le contenu du répertoire (créations, renommages et
+	 * suppressions), quand le système le permet.
+	 */
+	private void forceDirectory() {
+		try (FileChannel channel = FileChannel.open(directory, StandardOpenOption.READ)) {
+			channel.force(true);
+		} catch (IOException e) {
+			// un répertoire ne peut pas être ouvert ainsi sur certains systèmes
+		}
+	}
+
+	/**
+	 * Appliquer à set les enregistrements complets de channel.
+	 *
+	 * @return longueur de la partie valide du journal
+	 */
+	private static long replay(MySet set, FileChannel channel) throws IOException {
+		long size = channel.size();
+		if (size > Integer.MAX_VALUE) {
+			throw new IOException("journal trop long : " + size + " octets");
+		}
+		ByteBuffer buffer = ByteBuffer.allocate((int) size);
+		while (buffer.hasRemaining() && channel.read(buffer, buffer.position()) >= 0) {
+			// lecture jusqu'à la fin du fichier
+		}
+		CRC32 checksum = new CRC32();
+		int valid = 0;
+		while (buffer.position() - valid >= RECORD_OVERHEAD) {
+			int length = buffer.getInt(valid);
+			if (length < 1 || length > buffer.position() - valid - 8) {
+				break;
+			}
+			checksum.reset();
+			checksum.update(buffer.array(), valid + 4, length);
+			if ((int) checksum.getValue() != buffer.getInt(valid + 4 + length)) {
+				break;
+			}
+			apply(set, buffer.slice(valid + 4, length));
+			valid += 8 + length;
+		}
+		return valid;
+	}
+
+	/**
+	 * Appliquer à set l'enregistrement record (code puis paramètres).
+	 */
+	private static void apply(MySet set, ByteBuffer record) throws IOException {
+		byte code = record.get();
+		switch (code) {
+		case ADD:
+			set.addNumber(record.getInt());
+			break;
+		case REMOVE:
+			set.removeNumber(record.getInt());
+			break;
+		case ADD_RANGE:
+			set.addRange(record.getInt(), record.getInt());
+			break;
+		case REMOVE_RANGE:
+			set.removeRange(record.getInt(), record.getInt());
+			break;
+		case UNION:
+			set.union(readSet(record));
+			break;
+		case INTERSECTION:
+			set.intersection(readSet(record));
+			break;
+		case DIFFERENCE:
+			set.difference(readSet(record));
+			break;
+		case SYMMETRIC_DIFFERENCE:
+			set.symmetricDifference(readSet(record));
+			break;
+		default:
+			throw new IOException("enregistrement de journal inconnu : " + code);
+		}
+	}
+
+	/**
+	 * @return ensemble lu dans record : nombre de sous-ensembles, puis rang et
+	 *         quatre mots de chacun
+	 */
+	private static MySet readSet(ByteBuffer record) {
+		MySet result = new MySet();
+		int count = record.getInt();
+		long[] words = new long[SmallBitmap.WORDS];
+		for (int i = 0; i < count; ++i) {
+			int rank = record.getInt();
+			for (int w = 0; w < SmallBitmap.WORDS; ++w) {
+				words[w] = record.getLong();
+			}
+			result.append(new SubSet(rank, SmallBitmap.fromWords(words, 0)));
+		}
+		return result;
+	}
+
+	private void checkOpen() throws IOException {
+		if (failure != null) {
+			throw new IOException("journal inutilisable après une erreur d'écriture", failure);
+		}
+		if (closed) {
+			throw new IOException("ensemble fermé");
+		}
+	}
+
+	/**
+	 * Commencer dans pending un enregistrement de code code et de payload octets
+	 * de paramètres.
+	 *
+	 * @return position du début de l'enregistrement
+	 */
+	private int begin(byte code, int payload) {
+		int needed = RECORD_OVERHEAD + payload;
+		if (pending.remaining() < needed) {
+			ByteBuffer larger = ByteBuffer.allocate(Math.max(2 * pending.capacity(), pending.position() + needed));
+			pending.flip();
+			larger.put(pending);
+			pending = larger;
+		}
+		int start = pending.position();
+		pending.putInt(1 + payload).put(code);
+		return start;
+	}
+
+	/**
+	 * Terminer l'enregistrement commencé à start par son CRC.
+	 *
+	 * @return true si le lot en attente est complet et doit être validé
+	 */
+	private boolean end(int start) {
+		crc.reset();
+		crc.update(pending.array(), start + 4, pending.position() - start - 4);
+		pending.putInt((int) crc.getValue());
+		appended += pending.position() - start;
+		return ++pendingRecords >= batchSize;
+	}
+
+	/**
+	 * Écrire dans pending les sous-ensembles de set2.
+	 */
+	private void writeSet(MySet set2) {
+		int count = pending.position();
+		pending.putInt(0);
+		int n = 0;
+		long[] words = new long[SmallBitmap.WORDS];
+		for (Iterator<SubSet> it = set2.iterator(); !it.isOnFlag(); it.goForward()) {
+			SubSet subSet = it.getValue();
+			pending.putInt(subSet.rank);
+			subSet.set.copyWords(words, 0);
+			for (long word : words) {
+				pending.putLong(word);
+			}
+			++n;
+		}
+		pending.putInt(count, n);
+	}
+
+	/**
+	 * @param value valeur à tester
+	 * @return true si value appartient à this, false sinon
+	 */
+	public synchronized boolean containsValue(int value) {
+		return set.containsValue(value);
+	}
+
+	/**
+	 * @return cardinal de this, plafonné à Integer.MAX_VALUE
+	 */
+	public synchronized int size() {
+		return set.size();
+	}
+
+	/**
+	 * @return cardinal de this
+	 */
+	public synchronized long longSize() {
+		return set.longSize();
+	}
+
+	/**
+	 * @return true si this est vide, false sinon
+	 */
+	public synchronized boolean isEmpty() {
+		return set.isEmpty();
+	}
+
+	/**
+	 * @return version figée de this, lisible sans verrou
+	 */
+	public synchronized MySetSnapshot snapshot() {
+		return set.snapshot();
+	}
+
+	/**
+	 * Ajouter value à this (journalisé seulement si value est absente).
+	 *
+	 * @param value valeur à ajouter
+	 * @throws IOException si le journal ne peut pas être écrit
+	 */
+	public void addNumber(int value) throws IOException {
+		boolean full = false;
+		synchronized (this) {
+			checkOpen();
+			if (!set.containsValue(value)) {
+				int start = begin(ADD, 4);
+				pending.putInt(value);
+				full = end(start);
+				set.addNumber(value);
+			}
+		}
+		if (full) {
+			sync();
+		}
+	}
+
+	/**
+	 * Retirer value de this (journalisé seulement si value est présente).
+	 *
+	 * @param value valeur à retirer
+	 * @throws IOException si le journal ne peut pas être écrit
+	 */
+	public void removeNumber(int value) throws IOException {
+		boolean full = false;
+		synchronized (this) {
+			checkOpen();
+			if (set.containsValue(value)) {
+				int start = begin(REMOVE, 4);
+				pending.putInt(value);
+				full = end(start);
+				set.removeNumber(value);
+			}
+		}
+		if (full) {
+			sync();
+		}
+	}
+
+	/**
+	 * Ajouter à this toutes les valeurs de [lo, hi].
+	 *
+	 * @param lo début de l'intervalle
+	 * @param hi fin de l'intervalle (incluse)
+	 * @throws IOException si le journal ne peut pas être écrit
+	 */
+	public void addRange(int lo, int hi) throws IOException {
+		this.range(ADD_RANGE, lo, hi);
+	}
+
+	/**
+	 * Retirer de this toutes les valeurs de [lo, hi].
+	 *
+	 * @param lo début de l'intervalle
+	 * @param hi fin de l'intervalle (incluse)
+	 * @throws IOException si le journal ne peut pas être écrit
+	 */
+	public void removeRange(int lo, int hi) throws IOException {
+		this.range(REMOVE_RANGE, lo, hi);
+	}
+
+	private void range(byte code, int lo, int hi) throws IOException {
+		if (lo > hi) {
+			return;
+		}
+		boolean full;
+		synchronized (this) {
+			checkOpen();
+			int start = begin(code, 8);
+			pending.putInt(lo).putInt(hi);
+			full = end(start);
+			if (code == ADD_RANGE) {
+				set.addRange(lo, hi);
+			} else {
+				set.removeRange(lo, hi);
+			}
+		}
+		if (full) {
+			sync();
+		}
+	}
+
+	/**
+	 * Journaliser set2 sous le code code, puis effectuer l'opération sur this.
+	 */
+	private void algebra(byte code, MySet set2) throws IOException {
+		boolean full;
+		synchronized (this) {
+			checkOpen();
+			int start = begin(code, 4 + subSetCount(set2) * SUBSET_SIZE);
+			writeSet(set2);
+			full = end(start);
+			switch (code) {
+			case UNION:
+				set.union(set2);
+				break;
+			case INTERSECTION:
+				set.intersection(set2);
+				break;
+			case DIFFERENCE:
+				set.difference(set2);
+				break;
+			default:
+				set.symmetricDifference(set2);
+			}
+		}
+		if (full) {
+			sync();
+		}
+	}
+
+	private static int subSetCount(MySet set2) {
+		int n = 0;
+		for (Iterator<SubSet> it = set2.iterator(); !it.isOnFlag(); it.goForward()) {
+			++n;
+		}
+		return n;
+	}
+
+	/**
+	 * This devient l'union de this et set2 (set2 est recopié dans le journal).
+	 *
+	 * @param set2 deuxième ensemble
+	 * @throws IOException si le journal ne peut pas être écrit
+	 */
+	public void union(MySet set2) throws IOException {
+		this.algebra(UNION, set2);
+	}
+
+	/**
+	 * This devient l'intersection de this et set2 (set2 est recopié dans le
+	 * journal).
+	 *
+	 * @param set2 deuxième ensemble
+	 * @throws IOException si le journal ne peut pas être écrit
+	 */
+	public void intersection(MySet set2) throws IOException {
+		this.algebra(INTERSECTION, set2);
+	}
+
+	/**
+	 * This devient la différence de this et set2 (set2 est recopié dans le
+	 * journal).
+	 *
+	 * @param set2 deuxième ensemble
+	 * @throws IOException si le journal ne peut pas être écrit
+	 */
+	public void difference(MySet set2) throws IOException {
+		this.algebra(DIFFERENCE, set2);
+	}
+
+	/**
+	 * This devient la différence symétrique de this et set2 (set2 est recopié
+	 * dans le journal).
+	 *
+	 * @param set2 deuxième ensemble
+	 * @throws IOException si le journal ne peut pas être écrit
+	 */
+	public void symmetricDifference(MySet set2) throws IOException {
+		this.algebra(SYMMETRIC_DIFFERENCE, set2);
+	}
+
+	/**
+	 * Écrire et forcer sur disque les enregistrements en attente. Au retour,
+	 * toutes les modifications faites avant l'appel survivent à un arrêt
+	 * brutal.
+	 *
+	 * @throws IOException si le journal ne peut pas être écrit
+	 */
+	public void sync() throws IOException {
+		long target;
+		synchronized (this) {
+			checkOpen();
+			target = appended;
+		}
+		commitLock.lock();
+		try {
+			if (durable >= target) {
+				return;
+			}
+			commit();
+			if (logSize > checkpointBytes) {
+				checkpoint();
+			}
+		} finally {
+			commitLock.unlock();
+		}
+	}
+
+	/**
+	 * Écrire et forcer le lot en attente (commitLock doit être pris). Les
+	 * modifications reprennent dans un nouveau tampon pendant l'écriture.
+	 */
+	private void commit() throws IOException {
+		ByteBuffer batch;
+		long end;
+		synchronized (this) {
+			checkOpen();
+			batch = pending;
+			end = appended;
+			pending = ByteBuffer.allocate(batch.capacity());
+			pendingRecords = 0;
+		}
+		batch.flip();
+		try {
+			while (batch.hasRemaining()) {
+				log.write(batch);
+			}
+			log.force(false);
+		} catch (IOException e) {
+			synchronized (this) {
+				failure = e;
+			}
+			throw e;
+		}
+		logSize += batch.limit();
+		durable = end;
+	}
+
+	/**
+	 * Écrire un point de reprise de this (fichier temporaire forcé sur disque
+	 * puis renommé atomiquement), repartir d'un journal vide et effacer la
+	 * génération précédente. Les modifications attendent la fin du point de
+	 * reprise.
+	 *
+	 * @throws IOException si le point de reprise ne peut pas être écrit
+	 */
+	public void checkpoint() throws IOException {
+		commitLock.lock();
+		try {
+			synchronized (this) {
+				checkOpen();
+				long start = Metrics.start();
+				try {
+					long next = generation + 1;
+					Path temporary = directory.resolve(SNAPSHOT_PREFIX + next + TEMPORARY_SUFFIX);
+					try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.CREATE,
+							StandardOpenOption.READ, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+						BinaryFormat.write(set, channel);
+						channel.force(true);
+					}
+					Files.move(temporary, snapshotFile(next), StandardCopyOption.ATOMIC_MOVE);
+					forceDirectory();
+					// le point de reprise contient aussi les enregistrements en attente
+					FileChannel previous = log;
+					log = FileChannel.open(logFile(next), StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+							StandardOpenOption.TRUNCATE_EXISTING);
+					previous.close();
+					generation = next;
+					logSize = 0;
+					pending.clear();
+					pendingRecords = 0;
+					durable = appended;
+					removeOtherGenerations();
+				} catch (IOException e) {
+					failure = e;
+					throw e;
+				} finally {
+					Metrics.stop(MetricsSink.Operation.SAVE, start);
+				}
+			}
+		} finally {
+			commitLock.unlock();
+		}
+	}
+
+	/**
+	 * Valider les enregistrements en attente puis fermer le journal.
+	 *
+	 * @throws IOException si le journal ne peut pas être écrit
+	 */
+	@Override
+	public void close() throws IOException {
+		commitLock.lock();
+		try {
+			boolean failed;
+			synchronized (this) {
+				if (closed) {
+					return;
+				}
+				failed = failure != null;
+			}
+			try {
+				if (!failed) {
+					commit();
+				}
+			} finally {
+				synchronized (this) {
+					closed = true;
+				}
+				log.close();
+			}
+		} finally {
+			commitLock.unlock();
+		}
+	}
+
+	@Override
+	public synchronized String toString() {
+		return set.toString();
+	}
+}
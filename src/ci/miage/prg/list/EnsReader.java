@@ -0,0 +1,153 @@
+package ci.miage.prg.list;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.InputMismatchException;
+
+/**
+ * Lecteur d'entiers au format des fichiers .ens (entiers séparés par des
+ * blancs, terminés par -1). Remplace Scanner : les octets sont lus par blocs
+ * dans un tampon et les entiers décodés directement, sans expression régulière
+ * ni objet intermédiaire. Un fichier peut aussi être lu par projection en
+ * mémoire, fenêtre par fenêtre.
+ *
+ * @author Yeo François De Sales Gneneman <foursov@univ-rennes.fr>
+ * @author Yapi Yapo <foursov@univ-rennes.fr>
+ * @version 1.0
+ * @since 2026-10-17
+ */
+
+class EnsReader {
+
+	/**
+	 * Taille du tampon de lecture.
+	 */
+	static final int BUFFER_SIZE = 1 << 16;
+
+	/**
+	 * Valeur marquant la fin de la séquence.
+	 */
+	static final int END = -1;
+
+	/**
+	 * Taille par défaut d'une fenêtre de projection en mémoire.
+	 */
+	static final int WINDOW_SIZE = 1 << 26;
+
+	private final InputStream in;
+	private final FileChannel channel;
+	private final int windowSize;
+	private ByteBuffer buffer;
+	/**
+	 * Position dans le fichier de la prochaine fenêtre à projeter.
+	 */
+	private long position;
+
+	/**
+	 * @param in flux d'entrée
+	 */
+	EnsReader(InputStream in) {
+		this.in = in;
+		this.channel = null;
+		this.windowSize = BUFFER_SIZE;
+		this.buffer = ByteBuffer.allocate(BUFFER_SIZE);
+		this.buffer.limit(0);
+	}
+
+	/**
+	 * @param channel fichier lu par projection en mémoire
+	 */
+	EnsReader(FileChannel channel) {
+		this(channel, WINDOW_SIZE);
+	}
+
+	/**
+	 * @param channel    fichier lu par projection en mémoire
+	 * @param windowSize taille d'une fenêtre de projection
+	 */
+	EnsReader(FileChannel channel, int windowSize) {
+		this.in = null;
+		this.channel = channel;
+		this.windowSize = windowSize;
+		this.buffer = ByteBuffer.allocate(0);
+	}
+
+	/**
+	 * Remplir le tampon avec les octets suivants du flux, ou projeter la fenêtre
+	 * suivante du fichier.
+	 *
+	 * @return false si le flux est épuisé
+	 * @throws IOException en cas d'erreur de lecture
+	 */
+	private boolean fill() throws IOException {
+		if (channel != null) {
+			long size = channel.size();
+			if (position >= size) {
+				return false;
+			}
+			long length = Math.min(windowSize, size - position);
+			buffer = channel.map(FileChannel.MapMode.READ_ONLY, position, length);
+			position += length;
+			return true;
+		}
+		int count = in.read(buffer.array());
+		if (count <= 0) {
+			return false;
+		}
+		buffer.clear();
+		buffer.limit(count);
+		return true;
+	}
+
+	/**
+	 * @return octet suivant, ou -1 à la fin du flux
+	 * @throws IOException en cas d'erreur de lecture
+	 */
+	private int read() throws IOException {
+		if (!buffer.hasRemaining() && !fill()) {
+			return -1;
+		}
+		return buffer.get() & 0xFF;
+	}
+
+	/**
+	 * @return entier suivant, ou END à la fin du flux (un fichier sans -1 final
+	 *         est donc accepté)
+	 * @throws IOException            en cas d'erreur de lecture
+	 * @throws InputMismatchException si le mot lu n'est pas un entier
+	 */
+	int nextInt() throws IOException {
+		int c = read();
+		while (c >= 0 && c <= ' ') {
+			c = read();
+		}
+		if (c < 0) {
+			return END;
+		}
+		boolean negative = c == '-';
+		if (negative) {
+			c = read();
+		}
+		long value = 0;
+		int digits = 0;
+		while (c >= '0' && c <= '9') {
+			value = value * 10 + (c - '0');
+			if (value > -(long) Integer.MIN_VALUE) {
+				throw new InputMismatchException("entier trop grand");
+			}
+			++digits;
+			c = read();
+		}
+		if (digits == 0 || c > ' ') {
+			throw new InputMismatchException("caractere inattendu : " + (char) c);
+		}
+		if (negative) {
+			value = -value;
+		} else if (value > Integer.MAX_VALUE) {
+			throw new InputMismatchException("entier trop grand");
+		}
+		return (int) value;
+	}
+}
@@ -0,0 +1,182 @@
+package ci.miage.prg.list;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * Écrivain d'entiers au format des fichiers .ens : chaque entier est complété
+ * par des blancs sur six colonnes (un entier plus large est suivi d'un seul
+ * blanc), dix entiers par ligne. Les octets sont
+ * écrits directement dans un tampon réutilisé, vidé dans un flux quand il est
+ * plein, ou dans des fenêtres d'un fichier projetées en mémoire : aucune chaîne
+ * n'est construite pour l'ensemble ni pour chaque entier.
+ *
+ * @author Yeo François De Sales Gneneman <foursov@univ-rennes.fr>
+ * @author Yapi Yapo <foursov@univ-rennes.fr>
+ * @version 1.0
+ * @since 2026-10-17
+ */
+
+class EnsWriter {
+
+	/**
+	 * Taille par défaut d'une fenêtre de projection en mémoire.
+	 */
+	static final int WINDOW_SIZE = 1 << 26;
+
+	/**
+	 * Taille du tampon d'écriture dans un flux.
+	 */
+	static final int BUFFER_SIZE = 1 << 13;
+
+	/**
+	 * Largeur d'une colonne.
+	 */
+	private static final int WIDTH = 6;
+	/**
+	 * Nombre d'entiers par ligne.
+	 */
+	private static final int PER_LINE = 10;
+	/**
+	 * Nombre maximal d'octets écrits pour un entier (signe, dix chiffres, blanc,
+	 * fin de ligne).
+	 */
+	private static final int MAX_BYTES = 13;
+
+	private final OutputStream out;
+	private final FileChannel channel;
+	private final int windowSize;
+	private ByteBuffer buffer;
+	/**
+	 * Position dans le fichier du début de la fenêtre courante.
+	 */
+	private long base;
+	/**
+	 * Nombre d'entiers déjà écrits sur la ligne courante.
+	 */
+	private int count;
+	private final byte[] digits = new byte[MAX_BYTES];
+
+	/**
+	 * @param out flux de sortie (il n'est pas fermé par finish)
+	 */
+	EnsWriter(OutputStream out) {
+		this.out = out;
+		this.channel = null;
+		this.windowSize = BUFFER_SIZE;
+		this.buffer = ByteBuffer.allocate(BUFFER_SIZE);
+	}
+
+	/**
+	 * @param channel fichier écrit par projection en mémoire (ouvert en lecture
+	 *                et écriture)
+	 */
+	EnsWriter(FileChannel channel) {
+		this(channel, WINDOW_SIZE);
+	}
+
+	/**
+	 * @param channel    fichier écrit par projection en mémoire (ouvert en
+	 *                   lecture et écriture)
+	 * @param windowSize taille d'une fenêtre de projection (au moins MAX_BYTES)
+	 */
+	EnsWriter(FileChannel channel, int windowSize) {
+		this.out = null;
+		this.channel = channel;
+		this.windowSize = Math.max(windowSize, MAX_BYTES);
+		this.buffer = ByteBuffer.allocate(0);
+	}
+
+	/**
+	 * S'assurer qu'il reste au moins MAX_BYTES octets dans le tampon, en le
+	 * vidant dans le flux ou en projetant la fenêtre suivante si nécessaire.
+	 *
+	 * @throws IOException en cas d'erreur d'écriture
+	 */
+	private void reserve() throws IOException {
+		if (buffer.remaining() < MAX_BYTES) {
+			if (out != null) {
+				out.write(buffer.array(), 0, buffer.position());
+				buffer.clear();
+			} else {
+				base += buffer.position();
+				buffer = channel.map(FileChannel.MapMode.READ_WRITE, base, windowSize);
+			}
+		}
+	}
+
+	/**
+	 * Écrire value sur six colonnes, suivi d'une fin de ligne tous les dix
+	 * entiers.
+	 *
+	 * @param value entier à écrire
+	 * @throws IOException en cas d'erreur d'écriture
+	 */
+	void write(int value) throws IOException {
+		reserve();
+		int length = 0;
+		long v = value;
+		boolean negative = v < 0;
+		if (negative) {
+			v = -v;
+		}
+		do {
+			digits[length++] = (byte) ('0' + v % 10);
+			v /= 10;
+		} while (v != 0);
+		if (negative) {
+			digits[length++] = '-';
+		}
+		for (int i = length - 1; i >= 0; --i) {
+			buffer.put(digits[i]);
+		}
+		do {
+			buffer.put((byte) ' ');
+		} while (++length < WIDTH);
+		if (++count == PER_LINE) {
+			buffer.put((byte) '\n');
+			count = 0;
+		}
+	}
+
+	/**
+	 * Terminer la ligne en cours s'il y en a une.
+	 *
+	 * @throws IOException en cas d'erreur d'écriture
+	 */
+	void endLine() throws IOException {
+		if (count > 0) {
+			reserve();
+			buffer.put((byte) '\n');
+			count = 0;
+		}
+	}
+
+	/**
+	 * Écrire la marque de fin de séquence "-1".
+	 *
+	 * @throws IOException en cas d'erreur d'écriture
+	 */
+	void writeEnd() throws IOException {
+		reserve();
+		buffer.put((byte) '-').put((byte) '1').put((byte) '\n');
+	}
+
+	/**
+	 * Terminer l'écriture : vider le tampon dans le flux, ou ramener la taille du
+	 * fichier au nombre d'octets réellement écrits.
+	 *
+	 * @throws IOException en cas d'erreur d'écriture
+	 */
+	void finish() throws IOException {
+		if (out != null) {
+			out.write(buffer.array(), 0, buffer.position());
+			buffer.clear();
+			out.flush();
+		} else {
+			channel.truncate(base + buffer.position());
+		}
+	}
+}
@@ -0,0 +1,191 @@
+package ci.miage.prg.list;
+
+import java.lang.management.ManagementFactory;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+import javax.management.JMException;
+import javax.management.ObjectName;
+
+/**
+ * Destination des mesures tenue en mémoire et publiée par JMX. Les durées sont
+ * rangées dans un histogramme à 64 cases de puissances de deux par opération ;
+ * tous les compteurs sont des LongAdder, pour que des fils concurrents ne se
+ * gênent pas.
+ *
+ * @author Yeo François De Sales Gneneman <foursov@univ-rennes.fr>
+ * @author Yapi Yapo <foursov@univ-rennes.fr>
+ * @version 1.0
+ * @since 2026-10-17
+ */
+
+public class JmxMetricsSink implements MetricsSink, MySetMetricsMXBean {
+
+	/**
+	 * Nom JMX par défaut.
+	 */
+	public static final String DEFAULT_NAME = "ci.miage.prg.list:type=MySetMetrics";
+
+	private static final int BUCKETS = Long.SIZE;
+
+	private static final MetricsSink.Operation[] OPERATIONS = MetricsSink.Operation.values();
+	private static final MetricsSink.Counter[] COUNTERS = MetricsSink.Counter.values();
+
+	private final LongAdder[] counts = adders(OPERATIONS.length);
+	private final LongAdder[] nanos = adders(OPERATIONS.length);
+	/**
+	 * histograms[o][b] : nombre d'opérations o de durée d telle que
+	 * 64 - numberOfLeadingZeros(d) = b, c'est-à-dire d dans [2^(b-1), 2^b).
+	 */
+	private final LongAdder[][] histograms = new LongAdder[OPERATIONS.length][];
+	private final LongAdder[] counters = adders(COUNTERS.length);
+
+	public JmxMetricsSink() {
+		for (int i = 0; i < histograms.length; ++i) {
+			histograms[i] = adders(BUCKETS + 1);
+		}
+	}
+
+	private static LongAdder[] adders(int length) {
+		LongAdder[] result = new LongAdder[length];
+		for (int i = 0; i < length; ++i) {
+			result[i] = new LongAdder();
+		}
+		return result;
+	}
+
+	/**
+	 * Publier this dans le serveur JMX de la plateforme sous DEFAULT_NAME.
+	 *
+	 * @return nom sous lequel this est publié
+	 * @throws JMException si le nom est déjà pris
+	 */
+	public ObjectName register() throws JMException {
+		return this.register(DEFAULT_NAME);
+	}
+
+	/**
+	 * @param name nom JMX
+	 * @return nom sous lequel this est publié
+	 * @throws JMException si le nom est mal formé ou déjà pris
+	 */
+	public ObjectName register(String name) throws JMException {
+		ObjectName objectName = new ObjectName(name);
+		ManagementFactory.getPlatformMBeanServer().registerMBean(this, objectName);
+		return objectName;
+	}
+
+	@Override
+	public void record(MetricsSink.Operation operation, long duration) {
+		int o = operation.ordinal();
+		counts[o].increment();
+		nanos[o].add(duration);
+		histograms[o][BUCKETS - Long.numberOfLeadingZeros(Math.max(duration, 0L))].increment();
+	}
+
+	@Override
+	public void count(MetricsSink.Counter counter, long n) {
+		counters[counter.ordinal()].add(n);
+	}
+
+	/**
+	 * @param operation opération
+	 * @return nombre d'exécutions de operation
+	 */
+	public long count(MetricsSink.Operation operation) {
+		return counts[operation.ordinal()].sum();
+	}
+
+	/**
+	 * @param counter compteur
+	 * @return valeur de counter
+	 */
+	public long counter(MetricsSink.Counter counter) {
+		return counters[counter.ordinal()].sum();
+	}
+
+	/**
+	 * @param operation opération
+	 * @param fraction  rang du centile, entre 0 et 1
+	 * @return borne supérieure de la case de l'histogramme de operation qui
+	 *         contient le centile demandé (0 si rien n'a été mesuré)
+	 */
+	public long percentileNanos(MetricsSink.Operation operation, double fraction) {
+		LongAdder[] histogram = histograms[operation.ordinal()];
+		long[] buckets = new long[histogram.length];
+		long total = 0;
+		for (int b = 0; b < buckets.length; ++b) {
+			buckets[b] = histogram[b].sum();
+			total += buckets[b];
+		}
+		long target = (long) Math.ceil(fraction * total);
+		long seen = 0;
+		for (int b = 0; b < buckets.length; ++b) {
+			seen += buckets[b];
+			if (seen >= target && seen > 0) {
+				return b == BUCKETS ? Long.MAX_VALUE : (1L << b) - 1;
+			}
+		}
+		return 0;
+	}
+
+	@Override
+	public Map<String, Long> getOperationCounts() {
+		Map<String, Long> result = new LinkedHashMap<>();
+		for (MetricsSink.Operation operation : OPERATIONS) {
+			result.put(operation.name(), count(operation));
+		}
+		return result;
+	}
+
+	@Override
+	public Map<String, Long> getTotalNanos() {
+		Map<String, Long> result = new LinkedHashMap<>();
+		for (MetricsSink.Operation operation : OPERATIONS) {
+			result.put(operation.name(), nanos[operation.ordinal()].sum());
+		}
+		return result;
+	}
+
+	@Override
+	public Map<String, Long> getLatencyP50Nanos() {
+		return this.percentiles(0.5);
+	}
+
+	@Override
+	public Map<String, Long> getLatencyP99Nanos() {
+		return this.percentiles(0.99);
+	}
+
+	private Map<String, Long> percentiles(double fraction) {
+		Map<String, Long> result = new LinkedHashMap<>();
+		for (MetricsSink.Operation operation : OPERATIONS) {
+			result.put(operation.name(), percentileNanos(operation, fraction));
+		}
+		return result;
+	}
+
+	@Override
+	public Map<String, Long> getCounters() {
+		Map<String, Long> result = new LinkedHashMap<>();
+		for (MetricsSink.Counter counter : COUNTERS) {
+			result.put(counter.name(), counter(counter));
+		}
+		return result;
+	}
+
+	@Override
+	public void reset() {
+		for (int o = 0; o < OPERATIONS.length; ++o) {
+			counts[o].reset();
+			nanos[o].reset();
+			for (LongAdder bucket : histograms[o]) {
+				bucket.reset();
+			}
+		}
+		for (LongAdder counter : counters) {
+			counter.reset();
+		}
+	}
+}
@@ -0,0 +1,94 @@
+package ci.miage.prg.list;
+
+import java.util.Objects;
+
+/**
+ * Point d'entrée des mesures : tant qu'aucune destination n'est installée,
+ * chaque point de mesure se réduit à la lecture d'un champ et à un test.
+ *
+ * <pre>
+ * JmxMetricsSink sink = new JmxMetricsSink();
+ * sink.register();
+ * Metrics.enable(sink);
+ * </pre>
+ *
+ * @author Yeo François De Sales Gneneman <foursov@univ-rennes.fr>
+ * @author Yapi Yapo <foursov@univ-rennes.fr>
+ * @version 1.0
+ * @since 2026-10-17
+ */
+
+public final class Metrics {
+
+	private static volatile MetricsSink sink;
+
+	private Metrics() {
+	}
+
+	/**
+	 * Envoyer désormais les mesures à newSink.
+	 *
+	 * @param newSink destination non null
+	 */
+	public static void enable(MetricsSink newSink) {
+		sink = Objects.requireNonNull(newSink);
+	}
+
+	/**
+	 * Cesser de prendre des mesures.
+	 */
+	public static void disable() {
+		sink = null;
+	}
+
+	/**
+	 * @return destination actuelle, null si les mesures sont désactivées
+	 */
+	public static MetricsSink sink() {
+		return sink;
+	}
+
+	/**
+	 * @return instant de début d'une opération, 0 si les mesures sont
+	 *         désactivées
+	 */
+	static long start() {
+		return sink == null ? 0L : System.nanoTime();
+	}
+
+	/**
+	 * Enregistrer la fin d'une opération commencée à start (sans effet si les
+	 * mesures étaient désactivées au début ou le sont à la fin).
+	 */
+	static void stop(MetricsSink.Operation operation, long start) {
+		MetricsSink current = sink;
+		if (current != null && start != 0L) {
+			current.record(operation, System.nanoTime() - start);
+		}
+	}
+
+	/**
+	 * Compter un sous-ensemble créé.
+	 */
+	static void subSetAllocated() {
+		count(MetricsSink.Counter.SUBSET_ALLOCATIONS, 1);
+	}
+
+	/**
+	 * Compter un sous-ensemble retiré de la liste.
+	 */
+	static void subSetRemoved() {
+		count(MetricsSink.Counter.SUBSET_REMOVALS, 1);
+	}
+
+	/**
+	 * @param counter compteur à augmenter
+	 * @param n       nombre d'événements
+	 */
+	static void count(MetricsSink.Counter counter, long n) {
+		MetricsSink current = sink;
+		if (current != null && n != 0) {
+			current.count(counter, n);
+		}
+	}
+}
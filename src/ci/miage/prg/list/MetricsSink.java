@@ -0,0 +1,65 @@
+package ci.miage.prg.list;
+
+/**
+ * Destination des mesures prises par MySet et ConcurrentMySet quand elle est
+ * installée par Metrics.enable(). Les méthodes sont appelées par les fils qui
+ * exécutent les opérations : une implémentation doit être sûre en accès
+ * concurrent et rapide.
+ *
+ * @author Yeo François De Sales Gneneman <foursov@univ-rennes.fr>
+ * @author Yapi Yapo <foursov@univ-rennes.fr>
+ * @version 1.0
+ * @since 2026-10-17
+ */
+
+public interface MetricsSink {
+
+	/**
+	 * Opérations chronométrées.
+	 */
+	enum Operation {
+		ADD, REMOVE, CONTAINS, UNION, INTERSECTION, DIFFERENCE, SYMMETRIC_DIFFERENCE, RESTORE, SAVE
+	}
+
+	/**
+	 * Compteurs d'événements internes.
+	 */
+	enum Counter {
+		/**
+		 * Maillons de la liste parcourus.
+		 */
+		TRAVERSALS,
+		/**
+		 * Sous-ensembles créés (nouveaux rangs et copies).
+		 */
+		SUBSET_ALLOCATIONS,
+		/**
+		 * Sous-ensembles retirés de la liste.
+		 */
+		SUBSET_REMOVALS,
+		/**
+		 * Résultats trouvés dans un MySetCache.
+		 */
+		CACHE_HITS,
+		/**
+		 * Résultats absents (ou périmés) d'un MySetCache, donc calculés.
+		 */
+		CACHE_MISSES,
+		/**
+		 * Résultats retirés d'un MySetCache pour respecter son budget mémoire.
+		 */
+		CACHE_EVICTIONS
+	}
+
+	/**
+	 * @param operation opération terminée
+	 * @param nanos     durée de l'opération en nanosecondes
+	 */
+	void record(Operation operation, long nanos);
+
+	/**
+	 * @param counter compteur à augmenter
+	 * @param n       nombre d'événements
+	 */
+	void count(Counter counter, long n);
+}
@@ -1,18 +1,36 @@
 package ci.miage.prg.list;
 
-import java.io.FileInputStream;
-
-import java.io.FileNotFoundException;
-import java.io.FileOutputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.lang.ref.WeakReference;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileSystemException;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.ConcurrentModificationException;
+import java.util.NoSuchElementException;
+import java.util.OptionalInt;
+import java.util.PrimitiveIterator;
+import java.util.PriorityQueue;
 import java.util.Scanner;
+import java.util.Spliterator;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.IntConsumer;
+import java.util.stream.IntStream;
+import java.util.stream.StreamSupport;
 
 import ci.miage.prg.list_util.Comparison;
 import ci.miage.prg.list_util.Iterator;
 import ci.miage.prg.list_util.List;
-import ci.miage.prg.list_util.SmallSet;
 
 /**
  * @author Yeo François De Sales Gneneman <foursov@univ-rennes.fr>
@@ -24,13 +42,29 @@ import ci.miage.prg.list_util.SmallSet;
 public class MySet extends List<SubSet> {
 
     /**
-     * Borne supérieure pour les rangs des sous-ensembles.
+     * Bornes (incluses) des rangs des sous-ensembles : le rang d'une valeur est
+     * value >> 8 et sa place dans le sous-ensemble value & 0xFF, pour tout int.
+     */
+    static final int MIN_RANG = Integer.MIN_VALUE >> 8;
+    static final int MAX_RANG = Integer.MAX_VALUE >> 8;
+    /**
+     * Sous-ensemble de rang supérieur à tous les autres à mettre dans le drapeau
+     * de la liste.
+     */
+    private static final SubSet FLAG_VALUE = new SubSet(Integer.MAX_VALUE, new SmallBitmap());
+
+    /**
+     * Nombre de valeurs lues dans un flux avant d'être triées et ajoutées (ou
+     * retirées) rang par rang.
      */
-    private static final int MAX_RANG = 128;
+    private static final int BATCH_SIZE = 1 << 16;
+
     /**
-     * Sous-ensemble de rang maximal à mettre dans le drapeau de la liste.
+     * Nombre total de sous-ensembles des deux opérandes en dessous duquel les
+     * variantes parallèles des opérations se contentent de la version
+     * séquentielle.
      */
-    private static final SubSet FLAG_VALUE = new SubSet(MAX_RANG, new SmallSet());
+    private static final int PARALLEL_THRESHOLD = 1 << 12;
 
     private static final String NEW_VALUE = " nouveau contenu :"; // demande de SonarLint
 
@@ -39,9 +73,75 @@ public class MySet extends List<SubSet> {
      */
     private static final Scanner standardInput = new Scanner(System.in);
 
+    /**
+     * Source des numéros des ensembles.
+     */
+    private static final AtomicLong INSTANCES = new AtomicLong();
+
+    /**
+     * Numéro propre à this, attribué à sa création et jamais réutilisé (sert à
+     * MySetCache pour identifier et ranger les opérandes).
+     */
+    final long id = INSTANCES.getAndIncrement();
+
+    /**
+     * Table d'accès rang -> sous-ensemble présent dans la liste.
+     */
+    private final RankIndex ranks = new RankIndex();
+
+    /**
+     * Itérateur persistant servant aux insertions et suppressions ponctuelles ;
+     * il reste valide tant que la liste n'est modifiée que par lui.
+     */
+    private Iterator<SubSet> cursor;
+
+    /**
+     * Cardinal de this, tenu à jour par chaque modification (vérifié par un
+     * recomptage complet quand les assertions sont activées).
+     */
+    private long cardinality;
+
+    /**
+     * Nombre de modifications de this, augmenté par chaque opération qui modifie
+     * l'ensemble et quand la liste est modifiée de l'extérieur (le compteur de
+     * version de List n'est pas accessible).
+     */
+    private int modifications;
+
+    /**
+     * Code de hachage de this, valable tant que modifications vaut
+     * hashModifications.
+     */
+    private int hash;
+    private int hashModifications = -1;
+
+    /**
+     * Dernière version figée de this, valable tant que modifications vaut
+     * snapshotModifications ; la référence faible la laisse disparaître dès que
+     * plus aucun lecteur ne la tient.
+     */
+    private WeakReference<MySetSnapshot> snapshot = new WeakReference<>(null);
+    private int snapshotModifications;
+
+    /**
+     * Rangs triés et cumul des cardinaux des sous-ensembles, servant aux
+     * requêtes d'ordre (rank, select, ceiling...) : chaque modification la
+     * déclare périmée à partir du rang touché, et seule la fin périmée est
+     * reprise à la requête suivante. Contrairement à snapshot(), elle ne marque
+     * pas les sous-ensembles partagés et n'entraîne donc aucune copie.
+     */
+    private final OrderIndex order = new OrderIndex();
+
+    /**
+     * Suivi des changements depuis le dernier point de reprise, null s'il n'est
+     * pas demandé.
+     */
+    private ChangeTracker tracker;
+
     public MySet() {
         super();
         setFlag(FLAG_VALUE);
+        cursor = this.iterator();
     }
 
     /**
@@ -51,6 +151,153 @@ public class MySet extends List<SubSet> {
         standardInput.close();
     }
 
+    /**
+     * Vérifier que la table des rangs est à jour : si la liste a été modifiée par
+     * un autre itérateur que le curseur (modification extérieure à MySet), le
+     * curseur le détecte et la table est reconstruite.
+     */
+    private void checkRanks() {
+        try {
+            cursor.isOnFlag();
+        } catch (ConcurrentModificationException e) {
+            rebuildRanks();
+        }
+    }
+
+    /**
+     * Reconstruire la table des rangs à partir de la liste.
+     */
+    private void rebuildRanks() {
+        order.invalidateAll();
+        if (tracker != null) {
+            tracker.lose();
+        }
+        ranks.clear();
+        Iterator<SubSet> it = this.iterator();
+        while (!it.isOnFlag()) {
+            ranks.put(it.getValue().rank, it.getValue());
+            it.goForward();
+        }
+        cursor = this.iterator();
+        cardinality = this.count();
+        ++modifications;
+    }
+
+    /**
+     * Placer le curseur pour une insertion ou une suppression au rang rang. La
+     * liste ne permet pas de placer un itérateur sur un élément donné : si rang
+     * ne précède pas le premier rang présent ni ne suit le dernier (cas traités
+     * en temps constant, depuis le début ou la fin de la liste), le curseur y
+     * va pas à pas depuis sa position précédente. Le coût est donc le nombre de
+     * sous-ensembles entre les deux positions, soit au pire le nombre de
+     * sous-ensembles de this ; il reste faible quand les rangs touchés se
+     * suivent.
+     *
+     * @param rang rang cherché (entre MIN_RANG et MAX_RANG)
+     * @return curseur placé sur le premier sous-ensemble de rang supérieur ou égal
+     *         à rang (le drapeau à défaut)
+     */
+    private Iterator<SubSet> seek(int rang) {
+        Iterator<SubSet> ends = this.iterator();
+        if (rang <= ends.getValue().rank) {
+            cursor.restart();
+            return cursor;
+        }
+        ends.goBackward(); // drapeau
+        ends.goBackward(); // dernier sous-ensemble
+        if (rang > ends.getValue().rank) {
+            cursor.restart();
+            cursor.goBackward();
+            return cursor;
+        }
+        int steps = 0;
+        if (cursor.getValue().rank < rang) {
+            while (cursor.getValue().rank < rang) {
+                cursor.goForward();
+                ++steps;
+            }
+        } else {
+            cursor.goBackward();
+            while (!cursor.isOnFlag() && cursor.getValue().rank >= rang) {
+                cursor.goBackward();
+                ++steps;
+            }
+            cursor.goForward();
+            steps += 2;
+        }
+        Metrics.count(MetricsSink.Counter.TRAVERSALS, steps);
+        return cursor;
+    }
+
+    /**
+     * Noter que le rang rang va changer : la table d'ordre est périmée à partir
+     * de ce rang, et le changement est retenu s'il est suivi.
+     *
+     * @param rang   rang qui va changer
+     * @param origin sous-ensemble actuel de ce rang, null s'il est absent
+     */
+    private void touch(int rang, SubSet origin) {
+        order.invalidate(rang);
+        if (tracker != null) {
+            tracker.touch(rang, origin);
+        }
+    }
+
+    /**
+     * Noter que tous les rangs présents vont changer : la table d'ordre est
+     * entièrement périmée, et les changements sont retenus s'ils sont suivis.
+     */
+    private void touchAll() {
+        order.invalidateAll();
+        if (tracker != null) {
+            Iterator<SubSet> it = this.iterator();
+            while (!it.isOnFlag()) {
+                tracker.touch(it.getValue().rank, it.getValue());
+                it.goForward();
+            }
+        }
+    }
+
+    /**
+     * @param subSet sous-ensemble de this
+     * @return subSet s'il est propre à this, sinon la copie qui vient de le
+     *         remplacer dans this
+     */
+    private SubSet writable(SubSet subSet) {
+        if (subSet.shared) {
+            return writable(seek(subSet.rank));
+        }
+        touch(subSet.rank, subSet);
+        return subSet;
+    }
+
+    /**
+     * @param it itérateur de this placé sur un sous-ensemble
+     * @return ce sous-ensemble s'il est propre à this, sinon la copie qui vient
+     *         de le remplacer dans this
+     */
+    private SubSet writable(Iterator<SubSet> it) {
+        SubSet subSet = it.getValue();
+        touch(subSet.rank, subSet);
+        if (subSet.shared) {
+            subSet = subSet.copyOf();
+            Metrics.subSetAllocated();
+            it.setValue(subSet);
+            ranks.put(subSet.rank, subSet);
+        }
+        return subSet;
+    }
+
+    /**
+     * @param subSet sous-ensemble d'un autre ensemble
+     * @return subSet, marqué partagé pour être repris tel quel dans un second
+     *         ensemble
+     */
+    private static SubSet share(SubSet subSet) {
+        subSet.shared = true;
+        return subSet;
+    }
+
     private static Comparison compare(int a, int b) {
         if (a < b) {
             return Comparison.INF;
@@ -81,7 +328,7 @@ public class MySet extends List<SubSet> {
      */
     public boolean contains() {
         System.out.println(" valeur cherchee : ");
-        int value = readValue(standardInput, 0);
+        int value = readValue(standardInput);
         return this.containsValue(value);
     }
 
@@ -91,18 +338,12 @@ public class MySet extends List<SubSet> {
      */
 
     public boolean containsValue(int value) {
-        Iterator<SubSet> it = this.iterator();
-        int rang = value / 256;
-        int reste = value % 256;
-        if (rang <= MAX_RANG) {
-            while (rang > it.getValue().rank){
-                it.goForward();
-            }
-            if (rang == it.getValue().rank) {
-                return it.getValue().set.contains(reste);
-            }
-        }
-        return false;
+        long start = Metrics.start();
+        checkRanks();
+        SubSet subSet = ranks.get(value >> 8);
+        boolean result = subSet != null && subSet.set.contains(value & 0xFF);
+        Metrics.stop(MetricsSink.Operation.CONTAINS, start);
+        return result;
     }
 
     /**
@@ -121,12 +362,7 @@ public class MySet extends List<SubSet> {
      * @param is flux d'entrée.
      */
     public void addAllFromStream(InputStream is) {
-        Scanner scanner = new Scanner(is);
-        int nombre = scanner.nextInt();
-        while (nombre != -1) {
-            addNumber(nombre);
-            nombre = scanner.nextInt();
-        }
+        this.loadFromStream(is, true);
     }
 
     /**
@@ -135,22 +371,30 @@ public class MySet extends List<SubSet> {
      * @param value valuer à ajouter.
      */
     public void addNumber(int value) {
-        Iterator<SubSet> it = this.iterator();
-        int rang = value / 256;
-        int reste = value % 256;
-        if (rang <= MAX_RANG && value>=0 && value<= 32767) {
-            while (rang > it.getValue().rank) {
-                it.goForward();
-            }
-            if (rang == it.getValue().rank) {
-                it.getValue().set.add(reste);
-            } else {
-                SmallSet smallSet = new SmallSet();
-                smallSet.add(reste);
-                it.addLeft(new SubSet(rang, smallSet));
+        long start = Metrics.start();
+        int rang = value >> 8;
+        int reste = value & 0xFF;
+        checkRanks();
+        SubSet subSet = ranks.get(rang);
+        if (subSet != null) {
+            if (!subSet.set.contains(reste)) {
+                subSet = writable(subSet);
+                subSet.set.add(reste);
+                ++cardinality;
+                ++modifications;
             }
+        } else {
+            SmallBitmap smallSet = new SmallBitmap();
+            smallSet.add(reste);
+            subSet = new SubSet(rang, smallSet);
+            Metrics.subSetAllocated();
+            touch(rang, null);
+            seek(rang).addLeft(subSet);
+            ranks.put(rang, subSet);
+            ++cardinality;
+            ++modifications;
         }
-
+        Metrics.stop(MetricsSink.Operation.ADD, start);
     }
 
     /**
@@ -169,11 +413,137 @@ public class MySet extends List<SubSet> {
      * @param is flux d'entrée
      */
     public void removeAllFromStream(InputStream is) {
-        Scanner scanner = new Scanner(is);
-        int nombre = scanner.nextInt();
-        while (nombre != -1) {
-            removeNumber(nombre);
-            nombre = scanner.nextInt();
+        this.loadFromStream(is, false);
+    }
+
+    /**
+     * Ajouter à this (ou retirer de this) toutes les valeurs prises dans is.
+     *
+     * @param is  flux d'entrée
+     * @param add true pour ajouter les valeurs, false pour les retirer
+     */
+    private void loadFromStream(InputStream is, boolean add) {
+        try {
+            this.load(new EnsReader(is), add);
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * Lire toutes les valeurs de reader jusqu'à -1 par lots de BATCH_SIZE, puis
+     * ajouter (ou retirer) chaque lot rang par rang. Toute valeur int autre que
+     * -1 est acceptée.
+     *
+     * @param reader lecteur d'entiers
+     * @param add    true pour ajouter les valeurs, false pour les retirer
+     * @throws IOException en cas d'erreur de lecture (les valeurs déjà lues
+     *                     sont prises en compte)
+     */
+    private void load(EnsReader reader, boolean add) throws IOException {
+        int[] batch = new int[BATCH_SIZE];
+        int length = 0;
+        try {
+            int nombre = reader.nextInt();
+            while (nombre != EnsReader.END) {
+                if (length == batch.length) {
+                    this.apply(batch, length, add);
+                    length = 0;
+                }
+                batch[length++] = nombre;
+                nombre = reader.nextInt();
+            }
+        } finally {
+            this.apply(batch, length, add);
+        }
+    }
+
+    /**
+     * Ajouter à this (ou retirer de this) les length premières valeurs de
+     * values, chaque rang touché étant traité une seule fois, dans l'ordre
+     * croissant. Si les valeurs couvrent moins de rangs qu'il n'y a de valeurs,
+     * elles sont rangées dans une carte de bits couvrant ces rangs ; sinon elles
+     * sont triées puis regroupées par rang.
+     *
+     * @param values valeurs (éventuellement réordonnées par l'appel)
+     * @param length nombre de valeurs à prendre en compte
+     * @param add    true pour ajouter les valeurs, false pour les retirer
+     */
+    private void apply(int[] values, int length, boolean add) {
+        if (length == 0) {
+            return;
+        }
+        checkRanks();
+        ++modifications;
+        int min = values[0];
+        int max = values[0];
+        for (int i = 1; i < length; ++i) {
+            min = Math.min(min, values[i]);
+            max = Math.max(max, values[i]);
+        }
+        int first = min >> 8;
+        int count = (max >> 8) - first + 1;
+        if (count <= length) {
+            long[] bits = new long[count * SmallBitmap.WORDS];
+            for (int i = 0; i < length; ++i) {
+                int value = values[i];
+                bits[((value >> 8) - first) * SmallBitmap.WORDS + ((value & 0xFF) >>> 6)] |= 1L << value;
+            }
+            for (int r = 0; r < count; ++r) {
+                int offset = r * SmallBitmap.WORDS;
+                if ((bits[offset] | bits[offset + 1] | bits[offset + 2] | bits[offset + 3]) != 0) {
+                    this.applyRank(first + r, bits, offset, add);
+                }
+            }
+        } else {
+            Arrays.sort(values, 0, length);
+            long[] bits = new long[SmallBitmap.WORDS];
+            int i = 0;
+            while (i < length) {
+                int rang = values[i] >> 8;
+                Arrays.fill(bits, 0L);
+                while (i < length && values[i] >> 8 == rang) {
+                    bits[(values[i] & 0xFF) >>> 6] |= 1L << values[i];
+                    ++i;
+                }
+                this.applyRank(rang, bits, 0, add);
+            }
+        }
+    }
+
+    /**
+     * Ajouter au sous-ensemble de rang rang (ou en retirer) la carte de quatre
+     * mots rangée dans bits à partir de offset.
+     *
+     * @param rang   rang concerné
+     * @param bits   tableau de mots
+     * @param offset indice du premier mot
+     * @param add    true pour ajouter les valeurs, false pour les retirer
+     */
+    private void applyRank(int rang, long[] bits, int offset, boolean add) {
+        SubSet subSet = ranks.get(rang);
+        if (add) {
+            if (subSet == null) {
+                subSet = new SubSet(rang, new SmallBitmap());
+                Metrics.subSetAllocated();
+                touch(rang, null);
+                seek(rang).addLeft(subSet);
+                ranks.put(rang, subSet);
+            }
+            subSet = writable(subSet);
+            cardinality -= subSet.set.size();
+            subSet.set.union(bits, offset);
+            cardinality += subSet.set.size();
+        } else if (subSet != null) {
+            subSet = writable(subSet);
+            cardinality -= subSet.set.size();
+            subSet.set.difference(bits, offset);
+            cardinality += subSet.set.size();
+            if (subSet.set.isEmpty()) {
+                seek(rang).remove();
+                ranks.remove(rang);
+                Metrics.subSetRemoved();
+            }
         }
     }
 
@@ -183,26 +553,244 @@ public class MySet extends List<SubSet> {
      * @param value valeur à supprimer
      */
     public void removeNumber(int value) {
-        int rang = value / 256;
-        int reste = value % 256;
-        Iterator<SubSet> it = this.iterator();
-        while (rang > it.getValue().rank) {
-            it.goForward();
+        long start = Metrics.start();
+        int rang = value >> 8;
+        int reste = value & 0xFF;
+        checkRanks();
+        SubSet subSet = ranks.get(rang);
+        if (subSet != null && subSet.set.contains(reste)) {
+            subSet = writable(subSet);
+            subSet.set.remove(reste);
+            --cardinality;
+            ++modifications;
+            if (subSet.set.isEmpty()) {
+                seek(rang).remove();
+                ranks.remove(rang);
+                Metrics.subSetRemoved();
+            }
+        }
+        Metrics.stop(MetricsSink.Operation.REMOVE, start);
+    }
+
+    /**
+     * Ajouter à this toutes les valeurs de [lo, hi] : chaque rang concerné est
+     * traité une seule fois, les rangs intérieurs étant remplis entièrement.
+     *
+     * @param lo début de l'intervalle
+     * @param hi fin de l'intervalle (incluse)
+     */
+    public void addRange(int lo, int hi) {
+        if (lo > hi) {
+            return;
+        }
+        checkRanks();
+        ++modifications;
+        int first = lo >> 8;
+        int last = hi >> 8;
+        for (int rang = first; rang <= last; ++rang) {
+            int from = rang == first ? lo & 0xFF : 0;
+            int to = rang == last ? hi & 0xFF : SmallBitmap.SET_SIZE - 1;
+            SubSet subSet = ranks.get(rang);
+            if (subSet == null) {
+                subSet = new SubSet(rang, new SmallBitmap());
+                Metrics.subSetAllocated();
+                touch(rang, null);
+                seek(rang).addLeft(subSet);
+                ranks.put(rang, subSet);
+            }
+            subSet = writable(subSet);
+            cardinality -= subSet.set.size();
+            subSet.set.addInterval(from, to);
+            cardinality += subSet.set.size();
+        }
+    }
+
+    /**
+     * Retirer de this toutes les valeurs de [lo, hi] : seuls les sous-ensembles
+     * présents dans l'intervalle sont parcourus, ceux des rangs intérieurs étant
+     * supprimés entièrement. Un sous-ensemble sans valeur dans l'intervalle
+     * n'est ni copié ni noté changé, et this ne change pas de version si rien
+     * n'est retiré.
+     *
+     * @param lo début de l'intervalle
+     * @param hi fin de l'intervalle (incluse)
+     */
+    public void removeRange(int lo, int hi) {
+        if (lo > hi) {
+            return;
         }
-        if (rang == it.getValue().rank  ) {
-            it.getValue().set.remove(reste);
-            if (it.getValue().set.isEmpty() && !it.isOnFlag()){
+        checkRanks();
+        int first = lo >> 8;
+        int last = hi >> 8;
+        boolean removed = false;
+        Iterator<SubSet> it = seek(first);
+        while (it.getValue().rank <= last) {
+            int rang = it.getValue().rank;
+            int from = rang == first ? lo & 0xFF : 0;
+            int to = rang == last ? hi & 0xFF : SmallBitmap.SET_SIZE - 1;
+            int next = it.getValue().set.nextValue(from);
+            if (next < 0 || next > to) {
+                // rien à retirer : ni copie, ni changement noté
+                it.goForward();
+                continue;
+            }
+            removed = true;
+            SubSet subSet = writable(it);
+            cardinality -= subSet.set.size();
+            if (from > 0 || to < SmallBitmap.SET_SIZE - 1) {
+                subSet.set.removeInterval(from, to);
+            } else {
+                subSet.set.clear();
+            }
+            cardinality += subSet.set.size();
+            if (subSet.set.isEmpty()) {
+                ranks.remove(subSet.rank);
                 it.remove();
+                Metrics.subSetRemoved();
+            } else {
+                it.goForward();
+            }
+        }
+        if (removed) {
+            ++modifications;
+        }
+    }
+
+    /**
+     * @param lo début de l'intervalle
+     * @param hi fin de l'intervalle (incluse)
+     * @return true si toutes les valeurs de [lo, hi] appartiennent à this, false
+     *         sinon
+     */
+    public boolean containsRange(int lo, int hi) {
+        if (lo > hi) {
+            return true;
+        }
+        checkRanks();
+        if ((long) hi - lo + 1 > cardinality) {
+            return false;
+        }
+        int first = lo >> 8;
+        int last = hi >> 8;
+        for (int rang = first; rang <= last; ++rang) {
+            int from = rang == first ? lo & 0xFF : 0;
+            int to = rang == last ? hi & 0xFF : SmallBitmap.SET_SIZE - 1;
+            SubSet subSet = ranks.get(rang);
+            if (subSet == null || !subSet.set.containsInterval(from, to)) {
+                return false;
             }
         }
+        return true;
+    }
+
+    /**
+     * @return itérateur des valeurs de this dans l'ordre croissant
+     */
+    public PrimitiveIterator.OfInt valueIterator() {
+        return new ValueIterator(this.iterator());
+    }
+
+    /**
+     * Passer à action chaque valeur de this, dans l'ordre croissant.
+     *
+     * @param action action à effectuer
+     */
+    public void forEach(IntConsumer action) {
+        Iterator<SubSet> it = this.iterator();
+        while (!it.isOnFlag()) {
+            it.getValue().set.forEach(it.getValue().rank << 8, action);
+            it.goForward();
+        }
+    }
+
+    /**
+     * @return découpage des valeurs de this, aux frontières de rangs, pour les
+     *         flux parallèles ; il parcourt la version figée de this
+     *         (snapshot()), si bien que les modifications faites ensuite sur
+     *         this ne l'atteignent pas
+     */
+    public Spliterator.OfInt spliterator() {
+        MySetSnapshot snapshot = this.snapshot();
+        return new ValueSpliterator(snapshot.subSets(), snapshot.longSize());
+    }
+
+    /**
+     * @return flux des valeurs de this dans l'ordre croissant (rendu parallèle
+     *         par parallel())
+     */
+    public IntStream stream() {
+        return StreamSupport.intStream(this.spliterator(), false);
+    }
+
+    /**
+     * Ajouter subSet à la fin de this.
+     *
+     * @param subSet sous-ensemble non vide de rang supérieur à tous ceux de this
+     */
+    void append(SubSet subSet) {
+        checkRanks();
+        touch(subSet.rank, null);
+        seek(subSet.rank).addLeft(subSet);
+        ranks.put(subSet.rank, subSet);
+        cardinality += subSet.set.size();
+        ++modifications;
+    }
+
+    @Override
+    public void clear() {
+        touchAll();
+        super.clear();
+        ranks.clear();
+        cursor = this.iterator();
+        cardinality = 0;
+        ++modifications;
+    }
+
+    @Override
+    public void addHead(SubSet subSet) {
+        touch(subSet.rank, null);
+        super.addHead(subSet);
+        ranks.put(subSet.rank, subSet);
+        cursor = this.iterator();
+        cardinality += subSet.set.size();
+        ++modifications;
+    }
+
+    @Override
+    public void addTail(SubSet subSet) {
+        touch(subSet.rank, null);
+        super.addTail(subSet);
+        ranks.put(subSet.rank, subSet);
+        cursor = this.iterator();
+        cardinality += subSet.set.size();
+        ++modifications;
     }
 
     /**
-     * @return taille de l'ensemble this
+     * @return taille de l'ensemble this, plafonnée à Integer.MAX_VALUE (cf
+     *         longSize())
      */
     public int size() {
+        return (int) Math.min(this.longSize(), Integer.MAX_VALUE);
+    }
+
+    /**
+     * @return taille de l'ensemble this (qui peut dépasser Integer.MAX_VALUE
+     *         puisque toutes les valeurs int sont permises)
+     */
+    public long longSize() {
+        checkRanks();
+        assert cardinality == this.count() : "cardinal " + cardinality + " au lieu de " + this.count();
+        return cardinality;
+    }
+
+    /**
+     * @return taille de l'ensemble this, recomptée sous-ensemble par
+     *         sous-ensemble
+     */
+    private long count() {
         Iterator<SubSet> it = this.iterator();
-        int compteur = 0;
+        long compteur = 0;
         while (!it.isOnFlag()) {
             compteur = compteur +  it.getValue().set.size();
             it.goForward();
@@ -220,6 +808,11 @@ public class MySet extends List<SubSet> {
      * @param set2 deuxième ensemble
      */
     public void difference(MySet set2) {
+        checkRanks();
+        set2.checkRanks();
+        long start = Metrics.start();
+        int steps = 0;
+        ++modifications;
         Iterator<SubSet> it1 = this.iterator();
         Iterator<SubSet> it2 = set2.iterator();
 
@@ -227,16 +820,21 @@ public class MySet extends List<SubSet> {
             this.clear();
         }else {
             while (!it1.isOnFlag()) {
+                ++steps;
 
                 switch (compare(it1.getValue().rank, it2.getValue().rank)) {
                     case INF:
                         it1.goForward();
                         break;
                     case EGAL:
-                        it1.getValue().set.difference(it2.getValue().set);
+                        cardinality -= it1.getValue().set.size();
+                        writable(it1).set.difference(it2.getValue().set);
+                        cardinality += it1.getValue().set.size();
 
                         if (it1.getValue().set.isEmpty()) {
+                            ranks.remove(it1.getValue().rank);
                             it1.remove();
+                            Metrics.subSetRemoved();
                             it2.goForward();
                             break;
                         } else {
@@ -251,7 +849,10 @@ public class MySet extends List<SubSet> {
 
                 }
             }
+            cursor = this.iterator();
         }
+        Metrics.count(MetricsSink.Counter.TRAVERSALS, steps);
+        Metrics.stop(MetricsSink.Operation.DIFFERENCE, start);
     }
 
     /**
@@ -260,6 +861,11 @@ public class MySet extends List<SubSet> {
      * @param set2 deuxième ensemble
      */
     public void symmetricDifference(MySet set2) {
+        checkRanks();
+        set2.checkRanks();
+        long start = Metrics.start();
+        int steps = 0;
+        ++modifications;
         Iterator<SubSet> it1 = this.iterator();
         Iterator<SubSet> it2 = set2.iterator();
 
@@ -267,25 +873,37 @@ public class MySet extends List<SubSet> {
             this.clear();
         }else {
             while (!it2.isOnFlag()) {
+                ++steps;
                 if (it1.getValue().rank < it2.getValue().rank) {
                     it1.goForward();
                 } else if (it1.getValue().rank == it2.getValue().rank) {
-                    it1.getValue().set.symmetricDifference(it2.getValue().set);
+                    cardinality -= it1.getValue().set.size();
+                    writable(it1).set.symmetricDifference(it2.getValue().set);
+                    cardinality += it1.getValue().set.size();
                     if (it1.getValue().set.isEmpty()) {
+                        ranks.remove(it1.getValue().rank);
                         it1.remove();
+                        Metrics.subSetRemoved();
                     } else {
                         it1.goForward();
                     }
                     it2.goForward();
 
                 } else {
-                    it1.addLeft(it2.getValue().copyOf());
+                    SubSet subSet = share(it2.getValue());
+                    touch(subSet.rank, null);
+                    it1.addLeft(subSet);
+                    ranks.put(subSet.rank, subSet);
+                    cardinality += subSet.set.size();
                     it1.goForward();
                     it2.goForward();
                 }
 
             }
+            cursor = this.iterator();
         }
+        Metrics.count(MetricsSink.Counter.TRAVERSALS, steps);
+        Metrics.stop(MetricsSink.Operation.SYMMETRIC_DIFFERENCE, start);
     }
 
     /**
@@ -294,20 +912,34 @@ public class MySet extends List<SubSet> {
      * @param set2 deuxième ensemble
      */
     public void intersection(MySet set2) {
+        checkRanks();
+        set2.checkRanks();
+        long start = Metrics.start();
+        int steps = 0;
+        ++modifications;
         Iterator<SubSet> it1 = this.iterator();
         Iterator<SubSet> it2 = set2.iterator();
 
         while (!it1.isOnFlag()) {
+            ++steps;
 
             switch (compare(it1.getValue().rank, it2.getValue().rank)) {
                 case INF:
+                    touch(it1.getValue().rank, it1.getValue());
+                    ranks.remove(it1.getValue().rank);
+                    cardinality -= it1.getValue().set.size();
                     it1.remove();
+                    Metrics.subSetRemoved();
                     break;
                 case EGAL:
-                    it1.getValue().set.intersection(it2.getValue().set);
+                    cardinality -= it1.getValue().set.size();
+                    writable(it1).set.intersection(it2.getValue().set);
+                    cardinality += it1.getValue().set.size();
 
                     if (it1.getValue().set.isEmpty()) {
+                        ranks.remove(it1.getValue().rank);
                         it1.remove();
+                        Metrics.subSetRemoved();
                         break;
                     } else {
                         it1.goForward();
@@ -321,6 +953,9 @@ public class MySet extends List<SubSet> {
 
             }
         }
+        cursor = this.iterator();
+        Metrics.count(MetricsSink.Counter.TRAVERSALS, steps);
+        Metrics.stop(MetricsSink.Operation.INTERSECTION, start);
     }
 
     /**
@@ -329,66 +964,643 @@ public class MySet extends List<SubSet> {
      * @param set2 deuxième ensemble
      */
     public void union(MySet set2) {
+        checkRanks();
+        set2.checkRanks();
+        long start = Metrics.start();
+        int steps = 0;
+        ++modifications;
         Iterator<SubSet> it1 = this.iterator();
         Iterator<SubSet> it2 = set2.iterator();
 
         while (!it2.isOnFlag()){
+            ++steps;
             if (it1.getValue().rank < it2.getValue().rank){
                 it1.goForward();
             }else if (it1.getValue().rank == it2.getValue().rank){
-                it1.getValue().set.union(it2.getValue().set);
+                cardinality -= it1.getValue().set.size();
+                writable(it1).set.union(it2.getValue().set);
+                cardinality += it1.getValue().set.size();
                 it1.goForward();
                 it2.goForward();
             }else {
-                it1.addLeft(it2.getValue().copyOf());
+                SubSet subSet = share(it2.getValue());
+                touch(subSet.rank, null);
+                it1.addLeft(subSet);
+                ranks.put(subSet.rank, subSet);
+                cardinality += subSet.set.size();
                 it1.goForward();
                 it2.goForward();
             }
             it1.getValue();
             it2.getValue();
         }
+        cursor = this.iterator();
+        Metrics.count(MetricsSink.Counter.TRAVERSALS, steps);
+        Metrics.stop(MetricsSink.Operation.UNION, start);
     }
 
-    // /////////////////////////////////////////////////////////////////////////////
-    // /////////////////// Egalit�, Inclusion ////////////////////
-    // /////////////////////////////////////////////////////////////////////////////
-
     /**
-     * @param o deuxième ensemble
-     * @return true si les ensembles this et o sont égaux, false sinon
+     * This devient l'union de this et set2, calculée par segments de rangs sur
+     * pool.
+     *
+     * @param set2 deuxième ensemble
+     * @param pool pool exécutant les segments
      */
-    @Override
-    public boolean equals(Object o) {
-        boolean b = true;
-        if (this == o) {
-            return true;
-        } else if (o == null) {
-            b = false;
-        } else if (!(o instanceof MySet mySet)) {
-            b = false;
-        } else {
-            Iterator<SubSet> it1 = this.iterator();
-            Iterator<SubSet> it2 = mySet.iterator();
-
-            while (!it1.isOnFlag() && !it2.isOnFlag()) {
-                if (it1.getValue().rank != it2.getValue().rank || !it1.getValue().set.equals(it2.getValue().set)) {
-                    break;
-                }
-                it1.goForward();
-                it2.goForward();
-            }
-            b = it1.isOnFlag() && it2.isOnFlag();
-        }
-        return b;
+    public void unionParallel(MySet set2, ForkJoinPool pool) {
+        this.parallel(set2, ParallelAlgebra.Operation.UNION, pool);
     }
 
     /**
+     * This devient l'intersection de this et set2, calculée par segments de
+     * rangs sur pool.
+     *
      * @param set2 deuxième ensemble
-     * @return true si this est inclus dans set2, false sinon
+     * @param pool pool exécutant les segments
      */
-    public boolean isIncludedIn(MySet set2) {
-        Iterator<SubSet> it1 = this.iterator();
-        Iterator<SubSet> it2 = set2.iterator();
+    public void intersectionParallel(MySet set2, ForkJoinPool pool) {
+        this.parallel(set2, ParallelAlgebra.Operation.INTERSECTION, pool);
+    }
+
+    /**
+     * This devient la différence de this et set2, calculée par segments de rangs
+     * sur pool.
+     *
+     * @param set2 deuxième ensemble
+     * @param pool pool exécutant les segments
+     */
+    public void differenceParallel(MySet set2, ForkJoinPool pool) {
+        this.parallel(set2, ParallelAlgebra.Operation.DIFFERENCE, pool);
+    }
+
+    /**
+     * This devient la différence symétrique de this et set2, calculée par
+     * segments de rangs sur pool.
+     *
+     * @param set2 deuxième ensemble
+     * @param pool pool exécutant les segments
+     */
+    public void symmetricDifferenceParallel(MySet set2, ForkJoinPool pool) {
+        this.parallel(set2, ParallelAlgebra.Operation.SYMMETRIC_DIFFERENCE, pool);
+    }
+
+    /**
+     * Effectuer operation entre this et set2 sur pool, puis reconstruire la
+     * liste de this à partir des sous-ensembles du résultat : si une tâche
+     * échoue, l'exception remonte avant que this ne soit touché. Les petits
+     * ensembles, ou un pool d'un seul fil, passent par la version séquentielle.
+     */
+    private void parallel(MySet set2, ParallelAlgebra.Operation operation, ForkJoinPool pool) {
+        checkRanks();
+        set2.checkRanks();
+        if (this == set2 || pool.getParallelism() < 2
+                || ranks.entries() + set2.ranks.entries() < PARALLEL_THRESHOLD) {
+            switch (operation) {
+                case UNION:
+                    this.union(set2);
+                    break;
+                case INTERSECTION:
+                    this.intersection(set2);
+                    break;
+                case DIFFERENCE:
+                    this.difference(set2);
+                    break;
+                default:
+                    this.symmetricDifference(set2);
+            }
+            return;
+        }
+        long start = Metrics.start();
+        SubSet[] result = ParallelAlgebra.merge(this.toArray(), set2.toArray(), operation, pool);
+        this.clear();
+        Iterator<SubSet> tail = this.iterator();
+        for (SubSet subSet : result) {
+            touch(subSet.rank, null);
+            tail.addLeft(subSet);
+            tail.goForward();
+            ranks.put(subSet.rank, subSet);
+            cardinality += subSet.set.size();
+        }
+        cursor = this.iterator();
+        Metrics.stop(metric(operation), start);
+    }
+
+    /**
+     * @return opération mesurée correspondant à operation
+     */
+    private static MetricsSink.Operation metric(ParallelAlgebra.Operation operation) {
+        switch (operation) {
+            case UNION:
+                return MetricsSink.Operation.UNION;
+            case INTERSECTION:
+                return MetricsSink.Operation.INTERSECTION;
+            case DIFFERENCE:
+                return MetricsSink.Operation.DIFFERENCE;
+            default:
+                return MetricsSink.Operation.SYMMETRIC_DIFFERENCE;
+        }
+    }
+
+    /**
+     * @return sous-ensembles de this dans l'ordre croissant des rangs (la table
+     *         des rangs doit être à jour)
+     */
+    private SubSet[] toArray() {
+        SubSet[] result = new SubSet[ranks.entries()];
+        Iterator<SubSet> it = this.iterator();
+        int i = 0;
+        while (!it.isOnFlag()) {
+            result[i++] = it.getValue();
+            it.goForward();
+        }
+        return result;
+    }
+
+    /**
+     * @param set2 deuxième ensemble
+     * @return nouvel ensemble, union de this et set2 (this et set2 ne sont pas
+     *         modifiés)
+     */
+    public MySet or(MySet set2) {
+        return this.combine(set2, ParallelAlgebra.Operation.UNION);
+    }
+
+    /**
+     * @param set2 deuxième ensemble
+     * @return nouvel ensemble, intersection de this et set2 (this et set2 ne
+     *         sont pas modifiés)
+     */
+    public MySet and(MySet set2) {
+        return this.combine(set2, ParallelAlgebra.Operation.INTERSECTION);
+    }
+
+    /**
+     * @param set2 deuxième ensemble
+     * @return nouvel ensemble, différence de this et set2 (this et set2 ne sont
+     *         pas modifiés)
+     */
+    public MySet andNot(MySet set2) {
+        return this.combine(set2, ParallelAlgebra.Operation.DIFFERENCE);
+    }
+
+    /**
+     * @param set2 deuxième ensemble
+     * @return nouvel ensemble, différence symétrique de this et set2 (this et
+     *         set2 ne sont pas modifiés)
+     */
+    public MySet xor(MySet set2) {
+        return this.combine(set2, ParallelAlgebra.Operation.SYMMETRIC_DIFFERENCE);
+    }
+
+    /**
+     * Calculer operation entre this et set2 dans un nouvel ensemble. Les
+     * sous-ensembles qui passent sans changement dans le résultat (rang présent
+     * dans un seul opérande, ou même sous-ensemble des deux côtés) y sont
+     * partagés au lieu d'être copiés ; seuls ceux des rangs communs sont
+     * recalculés.
+     */
+    private MySet combine(MySet set2, ParallelAlgebra.Operation operation) {
+        long start = Metrics.start();
+        boolean keep1 = operation != ParallelAlgebra.Operation.INTERSECTION;
+        boolean keep2 = operation == ParallelAlgebra.Operation.UNION
+                || operation == ParallelAlgebra.Operation.SYMMETRIC_DIFFERENCE;
+        MySet result = new MySet();
+        Iterator<SubSet> tail = result.iterator();
+        Iterator<SubSet> it1 = this.iterator();
+        Iterator<SubSet> it2 = set2.iterator();
+        while (!it1.isOnFlag() && (keep1 || !it2.isOnFlag()) || keep2 && !it2.isOnFlag()) {
+            SubSet subSet1 = it1.getValue();
+            SubSet subSet2 = it2.getValue();
+            SubSet subSet = null;
+            if (subSet1.rank < subSet2.rank) {
+                if (keep1) {
+                    subSet = share(subSet1);
+                }
+                it1.goForward();
+            } else if (subSet1.rank > subSet2.rank) {
+                if (keep2) {
+                    subSet = share(subSet2);
+                }
+                it2.goForward();
+            } else {
+                subSet = ParallelAlgebra.combine(subSet1, subSet2, operation);
+                it1.goForward();
+                it2.goForward();
+            }
+            if (subSet != null) {
+                tail.addLeft(subSet);
+                tail.goForward();
+                result.ranks.put(subSet.rank, subSet);
+                result.cardinality += subSet.set.size();
+            }
+        }
+        result.cursor = result.iterator();
+        Metrics.stop(metric(operation), start);
+        return result;
+    }
+
+    /**
+     * Cardinal de l'intersection de this et set2, calculé par le parcours
+     * parallèle des rangs de intersection() en comptant les éléments communs
+     * de chaque rang, sans construire l'intersection ni modifier les opérandes.
+     *
+     * @param set2 deuxième ensemble
+     * @return nombre d'éléments communs à this et set2
+     */
+    public long intersectionSize(MySet set2) {
+        if (this == set2) {
+            return this.longSize();
+        }
+        Iterator<SubSet> it1 = this.iterator();
+        Iterator<SubSet> it2 = set2.iterator();
+        long count = 0;
+        while (!it1.isOnFlag() && !it2.isOnFlag()) {
+            int rank1 = it1.getValue().rank;
+            int rank2 = it2.getValue().rank;
+            if (rank1 < rank2) {
+                it1.goForward();
+            } else if (rank1 > rank2) {
+                it2.goForward();
+            } else {
+                count += it1.getValue().set.intersectionSize(it2.getValue().set);
+                it1.goForward();
+                it2.goForward();
+            }
+        }
+        return count;
+    }
+
+    /**
+     * @param set2 deuxième ensemble
+     * @return cardinal de l'union de this et set2 (sans la construire)
+     */
+    public long unionSize(MySet set2) {
+        return this.longSize() + set2.longSize() - this.intersectionSize(set2);
+    }
+
+    /**
+     * @param set2 deuxième ensemble
+     * @return cardinal de la différence de this et set2 (sans la construire)
+     */
+    public long differenceSize(MySet set2) {
+        return this.longSize() - this.intersectionSize(set2);
+    }
+
+    /**
+     * @param set2 deuxième ensemble
+     * @return cardinal de la différence symétrique de this et set2 (sans la
+     *         construire)
+     */
+    public long symmetricDifferenceSize(MySet set2) {
+        return this.longSize() + set2.longSize() - 2 * this.intersectionSize(set2);
+    }
+
+    /**
+     * @param set2 deuxième ensemble
+     * @return true si this et set2 ont au moins un élément commun, false sinon
+     *         (le parcours s'arrête au premier rang où c'est le cas)
+     */
+    public boolean intersects(MySet set2) {
+        if (this == set2) {
+            return !this.isEmpty();
+        }
+        Iterator<SubSet> it1 = this.iterator();
+        Iterator<SubSet> it2 = set2.iterator();
+        while (!it1.isOnFlag() && !it2.isOnFlag()) {
+            int rank1 = it1.getValue().rank;
+            int rank2 = it2.getValue().rank;
+            if (rank1 < rank2) {
+                it1.goForward();
+            } else if (rank1 > rank2) {
+                it2.goForward();
+            } else if (it1.getValue().set.intersectionSize(it2.getValue().set) > 0) {
+                return true;
+            } else {
+                it1.goForward();
+                it2.goForward();
+            }
+        }
+        return false;
+    }
+
+    /**
+     * @return numéro de version de this, changé par chaque modification faite
+     *         par MySet ou par un itérateur de la liste ; deux lectures qui
+     *         rendent le même numéro encadrent un ensemble inchangé (les
+     *         modifications directes de la carte de bits d'un sous-ensemble ne
+     *         sont pas vues)
+     */
+    public int version() {
+        checkRanks();
+        return modifications;
+    }
+
+    /**
+     * Version figée de this, à lire depuis n'importe quel fil pendant que le fil
+     * qui possède this continue de le modifier. Les sous-ensembles ne sont pas
+     * copiés mais partagés : this copiera chacun d'eux la première fois qu'il le
+     * modifiera. Tant que this n'est pas modifié, la même version est rendue
+     * sans nouveau parcours.
+     *
+     * @return version figée du contenu actuel de this
+     */
+    public MySetSnapshot snapshot() {
+        checkRanks();
+        MySetSnapshot result = snapshot.get();
+        if (result == null || snapshotModifications != modifications) {
+            SubSet[] subSets = this.toArray();
+            for (SubSet subSet : subSets) {
+                share(subSet);
+            }
+            result = new MySetSnapshot(subSets);
+            snapshot = new WeakReference<>(result);
+            snapshotModifications = modifications;
+        }
+        return result;
+    }
+
+    /**
+     * Suivre désormais les changements de this : l'état actuel devient le point
+     * de reprise. Le premier changement de chaque rang retient son
+     * sous-ensemble d'origine (sans le copier, grâce au partage) ; seuls les
+     * rangs changés sont ensuite comparés.
+     */
+    public void startTracking() {
+        checkRanks();
+        tracker = new ChangeTracker();
+    }
+
+    /**
+     * Cesser de suivre les changements de this.
+     */
+    public void stopTracking() {
+        tracker = null;
+    }
+
+    /**
+     * @return true si les changements de this sont suivis, false sinon
+     */
+    public boolean isTracking() {
+        return tracker != null;
+    }
+
+    /**
+     * @return changements de this depuis le point de reprise
+     * @throws IllegalStateException si les changements ne sont pas suivis, ou si
+     *                               la liste a été modifiée hors de MySet
+     */
+    public MySetDelta delta() {
+        if (tracker == null) {
+            throw new IllegalStateException("changements non suivis");
+        }
+        checkRanks();
+        return tracker.delta(ranks);
+    }
+
+    /**
+     * @return changements de this depuis le point de reprise, l'état actuel
+     *         devenant le nouveau point de reprise
+     * @throws IllegalStateException si les changements ne sont pas suivis, ou si
+     *                               la liste a été modifiée hors de MySet
+     */
+    public MySetDelta checkpoint() {
+        MySetDelta result = this.delta();
+        tracker = new ChangeTracker();
+        return result;
+    }
+
+    /**
+     * Rejouer sur this les changements de delta (this est normalement une copie
+     * de l'ensemble suivi prise au point de reprise de delta).
+     *
+     * @param delta changements à appliquer
+     */
+    public void applyDelta(MySetDelta delta) {
+        this.difference(delta.removed());
+        this.union(delta.added());
+    }
+
+    /**
+     * @return table des rangs triés, reprise à partir du plus petit rang
+     *         modifié depuis la requête précédente
+     */
+    private OrderIndex order() {
+        checkRanks();
+        if (order.isStale()) {
+            order.update(order.staleIndex() == 0 ? this.iterator() : seek(order.staleRank()), ranks.entries());
+        }
+        return order;
+    }
+
+    /**
+     * @param x valeur quelconque
+     * @return nombre de valeurs de this inférieures ou égales à x
+     */
+    public long rank(int x) {
+        return this.order().rank(x);
+    }
+
+    /**
+     * @param k indice, de 0 à longSize() - 1
+     * @return (k + 1)-ième plus petite valeur de this
+     * @throws IndexOutOfBoundsException si k n'est pas un indice valide
+     */
+    public int select(long k) {
+        return this.order().select(k);
+    }
+
+    /**
+     * @return plus petite valeur de this
+     * @throws NoSuchElementException si this est vide
+     */
+    public int first() {
+        return this.order().first();
+    }
+
+    /**
+     * @return plus grande valeur de this
+     * @throws NoSuchElementException si this est vide
+     */
+    public int last() {
+        return this.order().last();
+    }
+
+    /**
+     * @param x valeur quelconque
+     * @return plus petite valeur de this supérieure ou égale à x, vide à défaut
+     */
+    public OptionalInt ceiling(int x) {
+        return this.order().ceiling(x);
+    }
+
+    /**
+     * @param x valeur quelconque
+     * @return plus grande valeur de this inférieure ou égale à x, vide à défaut
+     */
+    public OptionalInt floor(int x) {
+        return this.order().floor(x);
+    }
+
+    /**
+     * @param x valeur quelconque
+     * @return plus petite valeur de this strictement supérieure à x, vide à
+     *         défaut
+     */
+    public OptionalInt higher(int x) {
+        return this.order().higher(x);
+    }
+
+    /**
+     * @param x valeur quelconque
+     * @return plus grande valeur de this strictement inférieure à x, vide à
+     *         défaut
+     */
+    public OptionalInt lower(int x) {
+        return this.order().lower(x);
+    }
+
+    /**
+     * Union de tous les ensembles de sets en une seule passe : les listes de
+     * rangs sont fusionnées par un tas dont le minimum est l'itérateur de plus
+     * petit rang courant. Pour chaque rang, le plus grand sous-ensemble est
+     * copié et les autres lui sont ajoutés ; un rang présent dans un seul
+     * ensemble reprend son sous-ensemble partagé.
+     *
+     * @param sets ensembles à réunir (non modifiés)
+     * @return nouvel ensemble, vide si sets est vide
+     */
+    public static MySet unionAll(Collection<MySet> sets) {
+        MySet result = new MySet();
+        PriorityQueue<Iterator<SubSet>> heap = new PriorityQueue<>(Math.max(1, sets.size()),
+                Comparator.comparingInt(it -> it.getValue().rank));
+        for (MySet set : sets) {
+            Iterator<SubSet> it = set.iterator();
+            if (!it.isOnFlag()) {
+                heap.add(it);
+            }
+        }
+        ArrayList<Iterator<SubSet>> same = new ArrayList<>();
+        while (!heap.isEmpty()) {
+            int rang = heap.peek().getValue().rank;
+            SubSet largest = null;
+            while (!heap.isEmpty() && heap.peek().getValue().rank == rang) {
+                Iterator<SubSet> it = heap.poll();
+                if (largest == null || it.getValue().set.size() > largest.set.size()) {
+                    largest = it.getValue();
+                }
+                same.add(it);
+            }
+            SubSet union;
+            if (same.size() == 1) {
+                union = share(largest);
+            } else {
+                union = largest.copyOf();
+                Metrics.subSetAllocated();
+            }
+            for (Iterator<SubSet> it : same) {
+                if (it.getValue() != largest) {
+                    union.set.union(it.getValue().set);
+                }
+                it.goForward();
+                if (!it.isOnFlag()) {
+                    heap.add(it);
+                }
+            }
+            same.clear();
+            result.append(union);
+        }
+        return result;
+    }
+
+    /**
+     * Intersection de tous les ensembles de sets en une seule passe. Les
+     * ensembles sont classés par cardinal croissant : seuls les rangs du plus
+     * petit sont parcourus, chacun étant cherché dans la table des rangs des
+     * autres, du plus petit au plus grand ; le parcours s'arrête au-delà du
+     * dernier rang de l'ensemble qui finit le plus tôt.
+     *
+     * @param sets ensembles à intersecter (non modifiés)
+     * @return nouvel ensemble, vide si sets est vide
+     */
+    public static MySet intersectAll(Collection<MySet> sets) {
+        MySet result = new MySet();
+        if (sets.isEmpty()) {
+            return result;
+        }
+        MySet[] inputs = sets.toArray(new MySet[0]);
+        int lastRank = Integer.MAX_VALUE;
+        for (MySet set : inputs) {
+            set.checkRanks();
+            Iterator<SubSet> it = set.iterator();
+            it.goBackward(); // drapeau
+            it.goBackward(); // dernier sous-ensemble
+            if (it.isOnFlag()) {
+                return result;
+            }
+            lastRank = Math.min(lastRank, it.getValue().rank);
+        }
+        Arrays.sort(inputs, Comparator.comparingLong(set -> set.cardinality));
+        Iterator<SubSet> it = inputs[0].iterator();
+        while (!it.isOnFlag() && it.getValue().rank <= lastRank) {
+            SubSet subSet = it.getValue();
+            boolean everywhere = true;
+            for (int i = 1; i < inputs.length && everywhere; ++i) {
+                everywhere = inputs[i].ranks.get(subSet.rank) != null;
+            }
+            if (everywhere) {
+                SubSet intersection = subSet.copyOf();
+                Metrics.subSetAllocated();
+                for (int i = 1; i < inputs.length && !intersection.set.isEmpty(); ++i) {
+                    intersection.set.intersection(inputs[i].ranks.get(subSet.rank).set);
+                }
+                if (!intersection.set.isEmpty()) {
+                    result.append(intersection);
+                }
+            }
+            it.goForward();
+        }
+        return result;
+    }
+
+    // /////////////////////////////////////////////////////////////////////////////
+    // /////////////////// Egalit�, Inclusion ////////////////////
+    // /////////////////////////////////////////////////////////////////////////////
+
+    /**
+     * @param o deuxième ensemble
+     * @return true si les ensembles this et o sont égaux, false sinon
+     */
+    @Override
+    public boolean equals(Object o) {
+        boolean b = true;
+        if (this == o) {
+            return true;
+        } else if (o == null) {
+            b = false;
+        } else if (!(o instanceof MySet mySet)) {
+            b = false;
+        } else {
+            Iterator<SubSet> it1 = this.iterator();
+            Iterator<SubSet> it2 = mySet.iterator();
+
+            while (!it1.isOnFlag() && !it2.isOnFlag()) {
+                if (it1.getValue().rank != it2.getValue().rank || !it1.getValue().set.equals(it2.getValue().set)) {
+                    break;
+                }
+                it1.goForward();
+                it2.goForward();
+            }
+            b = it1.isOnFlag() && it2.isOnFlag();
+        }
+        return b;
+    }
+
+    /**
+     * @param set2 deuxième ensemble
+     * @return true si this est inclus dans set2, false sinon
+     */
+    public boolean isIncludedIn(MySet set2) {
+        Iterator<SubSet> it1 = this.iterator();
+        Iterator<SubSet> it2 = set2.iterator();
 
         while (!it1.isOnFlag() && !it2.isOnFlag()) {
             if (it1.getValue().rank < it2.getValue().rank) {
@@ -411,17 +1623,26 @@ public class MySet extends List<SubSet> {
     // //////// Rangs, Restauration, Sauvegarde, Affichage //////////////
     // /////////////////////////////////////////////////////////////////////////////
 
+    /**
+     * @return code de hachage calculé à partir des rangs et des cartes de bits
+     *         des sous-ensembles, conservé tant que this n'est pas modifié
+     */
     @Override
     public int hashCode() {
-        int i = 1;
-        int result = 0;
-        Iterator<SubSet> it = this.iterator();
-        while (!it.isOnFlag()) {
-            SubSet ss = it.getValue();
-            result += i * ss.rank * ss.set.hashCode();
-            i *= 31;
+        checkRanks();
+        if (hashModifications != modifications) {
+            int result = 1;
+            Iterator<SubSet> it = this.iterator();
+            while (!it.isOnFlag()) {
+                SubSet ss = it.getValue();
+                result = 31 * result + ss.rank;
+                result = 31 * result + ss.set.hashCode();
+                it.goForward();
+            }
+            hash = result;
+            hashModifications = modifications;
         }
-        return result;
+        return hash;
     }
 
     /**
@@ -459,78 +1680,165 @@ public class MySet extends List<SubSet> {
      */
     public void restore() {
         String fileName = readFileName();
-        InputStream inFile;
         try {
-            inFile = new FileInputStream(fileName);
+            this.restore(Path.of(fileName));
             System.out.println(" [version corrigee de restauration]");
-            this.clear();
-            this.addAllFromStream(inFile);
-            inFile.close();
             System.out.println(NEW_VALUE);
             this.printNewState();
-        } catch (FileNotFoundException e) {
+        } catch (NoSuchFileException e) {
             e.printStackTrace();
             System.out.println("fichier " + fileName + " inexistant");
         } catch (IOException e) {
             e.printStackTrace();
-            System.out.println("probleme de fermeture du fichier " + fileName);
+            System.out.println("probleme de lecture du fichier " + fileName);
+        }
+    }
+
+    /**
+     * Créer this à partir du fichier path, soit au format binaire (cf
+     * saveBinary), soit contenant une séquence d’entiers terminée par -1. Le
+     * format est reconnu à la signature du fichier ; un fichier texte est lu par
+     * projection en mémoire, fenêtre par fenêtre.
+     *
+     * @param path fichier à lire
+     * @throws IOException si le fichier est absent, illisible ou mal formé
+     */
+    public void restore(Path path) throws IOException {
+        long start = Metrics.start();
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            this.clear();
+            if (BinaryFormat.isBinary(channel)) {
+                BinaryFormat.read(this, channel);
+            } else {
+                this.load(new EnsReader(channel), true);
+            }
+        } finally {
+            Metrics.stop(MetricsSink.Operation.RESTORE, start);
         }
     }
 
+    /**
+     * Sauvegarder this dans le fichier path au format binaire : en-tête,
+     * répertoire des rangs puis une carte de bits de 32 octets par
+     * sous-ensemble.
+     *
+     * @param path fichier à écrire (remplacé s'il existe)
+     * @throws IOException si le fichier ne peut pas être écrit
+     */
+    public void saveBinary(Path path) throws IOException {
+        long start = Metrics.start();
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            BinaryFormat.write(this, channel);
+        } finally {
+            Metrics.stop(MetricsSink.Operation.SAVE, start);
+        }
+    }
+
+    /**
+     * Lire un seul rang d'un fichier binaire sans décoder le reste.
+     *
+     * @param path fichier binaire (cf saveBinary)
+     * @param rang rang cherché
+     * @return sous-ensemble de rang rang, ou null s'il est absent
+     * @throws IOException si le fichier est absent, illisible ou mal formé
+     */
+    public static SubSet readSubSet(Path path, int rang) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            return BinaryFormat.readSubSet(channel, rang);
+        }
+    }
+
+    /**
+     * Convertir un fichier .ens (ou binaire) en fichier binaire.
+     *
+     * @param source fichier à lire
+     * @param target fichier binaire à écrire
+     * @throws IOException en cas d'erreur de lecture ou d'écriture
+     */
+    public static void convertToBinary(Path source, Path target) throws IOException {
+        MySet set = new MySet();
+        set.restore(source);
+        set.saveBinary(target);
+    }
+
     /**
      * Sauvegarder this dans un fichier d’entiers positifs terminé par -1.
      */
     public void save() {
         System.out.println(" [version corrigee de sauvegarde]");
-        OutputStream outFile;
         try {
-            outFile = new FileOutputStream(readFileName());
-            this.print(outFile);
-            outFile.write("-1\n".getBytes());
-            outFile.close();
-        } catch (FileNotFoundException e) {
+            this.save(Path.of(readFileName()));
+        } catch (FileSystemException e) {
             e.printStackTrace();
             System.out.println("pb ouverture fichier lors de la sauvegarde");
         } catch (IOException e) {
             e.printStackTrace();
-            System.out.println("probleme de fermeture du fichier");
+            System.out.println("probleme d'ecriture du fichier");
         }
     }
 
     /**
-     * @return l'ensemble this sous forme de chaîne de caractères.
+     * Sauvegarder this dans le fichier path, au même format que print() suivi de
+     * -1. Le fichier est écrit par projection en mémoire, fenêtre par fenêtre,
+     * sans construire la chaîne de l'ensemble.
+     *
+     * @param path fichier à écrire (remplacé s'il existe)
+     * @throws IOException si le fichier ne peut pas être écrit, ou si this
+     *                     contient -1 (le fichier n'est alors pas touché)
      */
-    @Override
-    public String toString() {
-        StringBuilder result = new StringBuilder();
-        int count = 0;
-        SubSet subSet;
-        int startValue;
+    public void save(Path path) throws IOException {
+        // -1 marque la fin d'un flux .ens : à la relecture, toutes les valeurs
+        // écrites après lui seraient perdues sans erreur
+        if (this.containsValue(EnsReader.END)) {
+            throw new IOException("-1 ne peut pas être écrit au format .ens (marque de fin)");
+        }
+        long start = Metrics.start();
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            EnsWriter writer = new EnsWriter(channel);
+            this.writeTo(writer);
+            writer.writeEnd();
+            writer.finish();
+        } finally {
+            Metrics.stop(MetricsSink.Operation.SAVE, start);
+        }
+    }
+
+    /**
+     * Écrire les éléments de this dans l'ordre croissant avec writer, en
+     * parcourant les bits présents de chaque sous-ensemble.
+     *
+     * @param writer écrivain de destination
+     * @throws IOException en cas d'erreur d'écriture
+     */
+    private void writeTo(EnsWriter writer) throws IOException {
+        long[] words = new long[SmallBitmap.WORDS];
         Iterator<SubSet> it = this.iterator();
         while (!it.isOnFlag()) {
-            subSet = it.getValue();
-            startValue = subSet.rank * 256;
-            for (int i = 0; i < 256; ++i) {
-                if (subSet.set.contains(i)) {
-                    StringBuilder number = new StringBuilder(String.valueOf(startValue + i));
-                    int numberLength = number.length();
-                    for (int j = 6; j > numberLength; --j) {
-                        number.append(" ");
-                    }
-                    result.append(number);
-                    ++count;
-                    if (count == 10) {
-                        result.append("\n");
-                        count = 0;
-                    }
+            SubSet subSet = it.getValue();
+            subSet.set.copyWords(words, 0);
+            for (int w = 0; w < SmallBitmap.WORDS; ++w) {
+                long word = words[w];
+                int startValue = (subSet.rank << 8) + (w << 6);
+                while (word != 0) {
+                    writer.write(startValue + Long.numberOfTrailingZeros(word));
+                    word &= word - 1;
                 }
             }
             it.goForward();
         }
-        if (count > 0) {
-            result.append("\n");
-        }
-        return result.toString();
+        writer.endLine();
+    }
+
+    /**
+     * @return l'ensemble this sous forme de chaîne de caractères.
+     */
+    @Override
+    public String toString() {
+        ByteArrayOutputStream result = new ByteArrayOutputStream();
+        this.print(result);
+        return result.toString(StandardCharsets.US_ASCII);
     }
 
     /**
@@ -540,8 +1848,9 @@ public class MySet extends List<SubSet> {
      */
     private void print(OutputStream outFile) {
         try {
-            String string = this.toString();
-            outFile.write(string.getBytes());
+            EnsWriter writer = new EnsWriter(outFile);
+            this.writeTo(writer);
+            writer.finish();
         } catch (IOException e) {
             e.printStackTrace();
         }
@@ -559,15 +1868,10 @@ public class MySet extends List<SubSet> {
 
     /**
      * @param scanner
-     * @param min     valeur minimale possible
-     * @return l'entier lu au clavier (doit être entre min et 32767)
+     * @return l'entier lu au clavier (tout int est une valeur possible)
      */
-    private static int readValue(Scanner scanner, int min) {
-        int value = scanner.nextInt();
-        while (value < min || value > 32767) {
-            System.out.println("valeur incorrecte");
-        }
-        return value;
+    private static int readValue(Scanner scanner) {
+        return scanner.nextInt();
     }
 
     /**
@@ -0,0 +1,370 @@
+package ci.miage.prg.list;
+
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Cache borné des résultats d'opérations ensemblistes entre MySet, pour les
+ * programmes qui recalculent souvent les mêmes unions et intersections de
+ * quelques grands ensembles.
+ * <ul>
+ * <li>Une entrée est identifiée par l'opération et le numéro propre à chacun
+ * des deux opérandes (les opérandes d'une union, d'une intersection ou d'une
+ * différence symétrique sont rangés par numéro croissant, l'opération étant
+ * commutative) ; elle retient la version (MySet.version()) de chaque opérande
+ * au moment du calcul. Dès qu'un opérande est modifié, sa version change et
+ * l'entrée est écartée et recalculée au prochain appel.</li>
+ * <li>Les opérandes sont tenus par des références faibles : le cache ne les
+ * garde pas en vie. Une entrée dont un opérande a disparu n'est plus jamais
+ * trouvée ; elle est retirée au prochain appel, quand la référence est
+ * relevée dans la file du ramasse-miettes.</li>
+ * <li>Les résultats sont des versions figées (MySetSnapshot) : ils sont rendus
+ * sans copie et ne changent plus. Leur place en mémoire est estimée en
+ * comptant tous leurs sous-ensembles, même ceux qu'ils partagent avec les
+ * opérandes ; les entrées les moins récemment utilisées sont évincées dès que
+ * le total dépasse le budget.</li>
+ * </ul>
+ * Les méthodes peuvent être appelées par plusieurs fils : les appels passent
+ * un à un, calcul compris, parce que lire un opérande dans le cache écrit
+ * aussi dans cet opérande (table des rangs, marques de partage). Pendant un
+ * appel, les opérandes ne doivent être ni modifiés ni utilisés par un autre
+ * fil hors du cache. Les nombres de succès, d'échecs et d'évictions sont
+ * aussi envoyés aux mesures (Metrics).
+ *
+ * @author Yeo François De Sales Gneneman <foursov@univ-rennes.fr>
+ * @author Yapi Yapo <foursov@univ-rennes.fr>
+ * @version 1.0
+ * @since 2026-10-17
+ */
+
+public final class MySetCache {
+
+	/**
+	 * Budget mémoire par défaut, en octets.
+	 */
+	public static final long DEFAULT_MAX_BYTES = 64L << 20;
+
+	/**
+	 * Place estimée d'une entrée hors sous-ensembles : clé, références faibles,
+	 * entrée de la table, version figée et ses trois tableaux vides.
+	 */
+	private static final int ENTRY_BYTES = 256;
+	/**
+	 * Place estimée d'un sous-ensemble hors carte de bits : objet SubSet, et une
+	 * case de chacun des tableaux de la version figée.
+	 */
+	private static final int SUBSET_BYTES = 24 + 8 + 4 + 4;
+
+	/**
+	 * Opération et numéros des opérandes.
+	 */
+	private static final class Key {
+
+		private final ParallelAlgebra.Operation operation;
+		private final long id1;
+		private final long id2;
+		private final Operand set1;
+		private final Operand set2;
+
+		Key(ParallelAlgebra.Operation operation, MySet set1, MySet set2, ReferenceQueue<MySet> queue) {
+			this.operation = operation;
+			id1 = set1.id;
+			id2 = set2.id;
+			this.set1 = new Operand(set1, this, queue);
+			this.set2 = new Operand(set2, this, queue);
+		}
+
+		@Override
+		public boolean equals(Object o) {
+			if (this == o) {
+				return true;
+			}
+			if (!(o instanceof Key)) {
+				return false;
+			}
+			Key key = (Key) o;
+			return operation == key.operation && id1 == key.id1 && id2 == key.id2 && set1.get() != null
+					&& set2.get() != null;
+		}
+
+		@Override
+		public int hashCode() {
+			return (31 * operation.hashCode() + Long.hashCode(id1)) * 31 + Long.hashCode(id2);
+		}
+	}
+
+	/**
+	 * Référence faible à un opérande, qui retrouve sa clé quand le
+	 * ramasse-miettes la place dans la file.
+	 */
+	private static final class Operand extends WeakReference<MySet> {
+
+		private final Key key;
+
+		Operand(MySet set, Key key, ReferenceQueue<MySet> queue) {
+			super(set, queue);
+			this.key = key;
+		}
+	}
+
+	/**
+	 * Résultat, versions des opérandes lors du calcul et place estimée.
+	 */
+	private static final class Entry {
+
+		private final int version1;
+		private final int version2;
+		private final MySetSnapshot result;
+		private final long weight;
+
+		Entry(int version1, int version2, MySetSnapshot result, long weight) {
+			this.version1 = version1;
+			this.version2 = version2;
+			this.result = result;
+			this.weight = weight;
+		}
+	}
+
+	private final long maxBytes;
+	/**
+	 * Entrées dans l'ordre des accès, de la plus ancienne à la plus récente.
+	 */
+	private final LinkedHashMap<Key, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+	/**
+	 * Références des opérandes disparus, dont les entrées sont à retirer.
+	 */
+	private final ReferenceQueue<MySet> queue = new ReferenceQueue<>();
+	private long weight;
+	private long hits;
+	private long misses;
+	private long evictions;
+	private long invalidations;
+
+	/**
+	 * Cache vide, de budget DEFAULT_MAX_BYTES.
+	 */
+	public MySetCache() {
+		this(DEFAULT_MAX_BYTES);
+	}
+
+	/**
+	 * @param maxBytes budget mémoire en octets ; un résultat plus gros n'est pas
+	 *                 retenu
+	 */
+	public MySetCache(long maxBytes) {
+		if (maxBytes < 0) {
+			throw new IllegalArgumentException("budget négatif : " + maxBytes);
+		}
+		this.maxBytes = maxBytes;
+	}
+
+	/**
+	 * @param set1 premier ensemble
+	 * @param set2 deuxième ensemble
+	 * @return union de set1 et set2, calculée ou reprise du cache
+	 */
+	public MySetSnapshot union(MySet set1, MySet set2) {
+		return this.get(ParallelAlgebra.Operation.UNION, set1, set2);
+	}
+
+	/**
+	 * @param set1 premier ensemble
+	 * @param set2 deuxième ensemble
+	 * @return intersection de set1 et set2, calculée ou reprise du cache
+	 */
+	public MySetSnapshot intersection(MySet set1, MySet set2) {
+		return this.get(ParallelAlgebra.Operation.INTERSECTION, set1, set2);
+	}
+
+	/**
+	 * @param set1 premier ensemble
+	 * @param set2 deuxième ensemble
+	 * @return différence de set1 et set2, calculée ou reprise du cache
+	 */
+	public MySetSnapshot difference(MySet set1, MySet set2) {
+		return this.get(ParallelAlgebra.Operation.DIFFERENCE, set1, set2);
+	}
+
+	/**
+	 * @param set1 premier ensemble
+	 * @param set2 deuxième ensemble
+	 * @return différence symétrique de set1 et set2, calculée ou reprise du
+	 *         cache
+	 */
+	public MySetSnapshot symmetricDifference(MySet set1, MySet set2) {
+		return this.get(ParallelAlgebra.Operation.SYMMETRIC_DIFFERENCE, set1, set2);
+	}
+
+	/**
+	 * Tout l'appel se fait sous le moniteur de this : version() peut
+	 * reconstruire la table des rangs d'un opérande et les calculs marquent
+	 * partagés des sous-ensembles des opérandes, écritures que deux fils ne
+	 * doivent pas faire en même temps sur le même ensemble.
+	 */
+	private synchronized MySetSnapshot get(ParallelAlgebra.Operation operation, MySet set1, MySet set2) {
+		if (operation != ParallelAlgebra.Operation.DIFFERENCE && set2.id < set1.id) {
+			MySet first = set2;
+			set2 = set1;
+			set1 = first;
+		}
+		int version1 = set1.version();
+		int version2 = set2.version();
+		Key key = new Key(operation, set1, set2, queue);
+		this.expunge();
+		Entry entry = entries.get(key);
+		if (entry != null) {
+			if (entry.version1 == version1 && entry.version2 == version2) {
+				++hits;
+				Metrics.count(MetricsSink.Counter.CACHE_HITS, 1);
+				return entry.result;
+			}
+			entries.remove(key);
+			weight -= entry.weight;
+			++invalidations;
+		}
+		++misses;
+		Metrics.count(MetricsSink.Counter.CACHE_MISSES, 1);
+		MySet set;
+		switch (operation) {
+		case UNION:
+			set = set1.or(set2);
+			break;
+		case INTERSECTION:
+			set = set1.and(set2);
+			break;
+		case DIFFERENCE:
+			set = set1.andNot(set2);
+			break;
+		default:
+			set = set1.xor(set2);
+		}
+		MySetSnapshot result = set.snapshot();
+		long resultWeight = weigh(result);
+		if (resultWeight <= maxBytes) {
+			entries.put(key, new Entry(version1, version2, result, resultWeight));
+			weight += resultWeight;
+			this.evict();
+		}
+		return result;
+	}
+
+	/**
+	 * @return place estimée de l'entrée de result
+	 */
+	private static long weigh(MySetSnapshot result) {
+		long total = ENTRY_BYTES;
+		for (SubSet subSet : result.subSets()) {
+			total += SUBSET_BYTES + subSet.set.footprint();
+		}
+		return total;
+	}
+
+	/**
+	 * Retirer les entrées dont un opérande a disparu.
+	 */
+	private void expunge() {
+		Reference<? extends MySet> reference;
+		while ((reference = queue.poll()) != null) {
+			// trouvée par identité : une clé dont un opérande a disparu n'est
+			// plus égale à aucune autre
+			Entry entry = entries.remove(((Operand) reference).key);
+			if (entry != null) {
+				weight -= entry.weight;
+			}
+		}
+	}
+
+	/**
+	 * Évincer les entrées les moins récemment utilisées jusqu'à respecter le
+	 * budget.
+	 */
+	private void evict() {
+		Iterator<Map.Entry<Key, Entry>> it = entries.entrySet().iterator();
+		long evicted = 0;
+		while (weight > maxBytes && it.hasNext()) {
+			weight -= it.next().getValue().weight;
+			it.remove();
+			++evicted;
+		}
+		evictions += evicted;
+		Metrics.count(MetricsSink.Counter.CACHE_EVICTIONS, evicted);
+	}
+
+	/**
+	 * Vider le cache (les statistiques sont conservées).
+	 */
+	public synchronized void clear() {
+		entries.clear();
+		weight = 0;
+	}
+
+	/**
+	 * @return nombre de résultats retenus
+	 */
+	public synchronized int size() {
+		this.expunge();
+		return entries.size();
+	}
+
+	/**
+	 * @return place estimée des résultats retenus, en octets
+	 */
+	public synchronized long weight() {
+		this.expunge();
+		return weight;
+	}
+
+	/**
+	 * @return budget mémoire, en octets
+	 */
+	public long maxBytes() {
+		return maxBytes;
+	}
+
+	/**
+	 * @return nombre d'appels servis par le cache
+	 */
+	public synchronized long hitCount() {
+		return hits;
+	}
+
+	/**
+	 * @return nombre d'appels qui ont dû calculer leur résultat
+	 */
+	public synchronized long missCount() {
+		return misses;
+	}
+
+	/**
+	 * @return nombre d'entrées évincées pour respecter le budget
+	 */
+	public synchronized long evictionCount() {
+		return evictions;
+	}
+
+	/**
+	 * @return nombre d'entrées écartées parce qu'un opérande avait changé
+	 */
+	public synchronized long invalidationCount() {
+		return invalidations;
+	}
+
+	/**
+	 * @return proportion des appels servis par le cache (0 avant le premier
+	 *         appel)
+	 */
+	public synchronized double hitRate() {
+		long requests = hits + misses;
+		return requests == 0 ? 0 : (double) hits / requests;
+	}
+
+	@Override
+	public synchronized String toString() {
+		return "MySetCache [size=" + entries.size() + ", weight=" + weight + "/" + maxBytes + ", hits=" + hits
+				+ ", misses=" + misses + ", evictions=" + evictions + ", invalidations=" + invalidations + "]";
+	}
+}
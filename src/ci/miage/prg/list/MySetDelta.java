@@ -0,0 +1,61 @@
+package ci.miage.prg.list;
+
+/**
+ * Changements d'un MySet depuis un point de reprise (cf
+ * MySet.startTracking()) : valeurs ajoutées et valeurs retirées, chacune sous
+ * la forme d'un MySet. MySet.applyDelta(delta) rejoue ces changements sur une
+ * copie de l'ensemble pris au point de reprise.
+ *
+ * @author Yeo François De Sales Gneneman <foursov@univ-rennes.fr>
+ * @author Yapi Yapo <foursov@univ-rennes.fr>
+ * @version 1.0
+ * @since 2026-10-17
+ */
+
+public final class MySetDelta {
+
+	private final MySet added;
+	private final MySet removed;
+
+	/**
+	 * @param added   valeurs absentes au point de reprise et présentes depuis
+	 * @param removed valeurs présentes au point de reprise et absentes depuis
+	 */
+	public MySetDelta(MySet added, MySet removed) {
+		this.added = added;
+		this.removed = removed;
+	}
+
+	/**
+	 * @return valeurs ajoutées depuis le point de reprise
+	 */
+	public MySet added() {
+		return added;
+	}
+
+	/**
+	 * @return valeurs retirées depuis le point de reprise
+	 */
+	public MySet removed() {
+		return removed;
+	}
+
+	/**
+	 * @return nombre de valeurs ajoutées ou retirées
+	 */
+	public long size() {
+		return added.longSize() + removed.longSize();
+	}
+
+	/**
+	 * @return true s'il n'y a aucun changement, false sinon
+	 */
+	public boolean isEmpty() {
+		return added.isEmpty() && removed.isEmpty();
+	}
+
+	@Override
+	public String toString() {
+		return "MySetDelta [added=" + added.size() + ", removed=" + removed.size() + "]";
+	}
+}
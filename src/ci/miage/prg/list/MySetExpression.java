@@ -0,0 +1,527 @@
+package ci.miage.prg.list;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Expression ensembliste différée sur des MySet : arbre d'unions,
+ * d'intersections, de différences et de différences symétriques dont les
+ * feuilles sont des ensembles. Rien n'est calculé à la construction ;
+ * l'évaluation parcourt les rangs dans l'ordre croissant et ne calcule, pour
+ * chaque rang, que le sous-ensemble du résultat :
+ * <ul>
+ * <li>une intersection ne propose que les rangs présents dans tous ses
+ * opérandes (saut de l'un à l'autre par recherche exponentielle), si bien que
+ * ses opérandes composés ne sont jamais calculés pour les autres rangs ;</li>
+ * <li>une différence ne propose que les rangs de son premier opérande ;</li>
+ * <li>les sous-ensembles des feuilles sont lus sans copie (partagés) et un
+ * sous-ensemble n'est copié que lorsqu'il doit être combiné avec un autre.</li>
+ * </ul>
+ * À l'évaluation, les opérations associatives imbriquées sont mises à plat,
+ * une feuille répétée dans une union ou une intersection n'est gardée qu'une
+ * fois et les opérandes d'une intersection sont pris du plus petit au plus
+ * grand, pour écarter au plus tôt les rangs absents.
+ *
+ * <pre>
+ * MySet result = MySetExpression.of(a).union(b).intersection(c).difference(d).evaluate();
+ * </pre>
+ *
+ * Les ensembles des feuilles ne doivent pas être modifiés pendant une
+ * évaluation ; ils peuvent l'être entre deux évaluations.
+ *
+ * @author Yeo François De Sales Gneneman <foursov@univ-rennes.fr>
+ * @author Yapi Yapo <foursov@univ-rennes.fr>
+ * @version 1.0
+ * @since 2026-10-17
+ */
+
+public abstract class MySetExpression {
+
+	/**
+	 * Rang rendu par Cursor.next() quand il n'y a plus de rang.
+	 */
+	private static final int NONE = Integer.MAX_VALUE;
+
+	MySetExpression() {
+	}
+
+	/**
+	 * @param set ensemble (non copié)
+	 * @return expression réduite à set
+	 */
+	public static MySetExpression of(MySet set) {
+		return new Leaf(set);
+	}
+
+	/**
+	 * @param other deuxième opérande
+	 * @return expression de l'union de this et other
+	 */
+	public MySetExpression union(MySetExpression other) {
+		return new Combination(ParallelAlgebra.Operation.UNION, this, other);
+	}
+
+	/**
+	 * @param other deuxième opérande
+	 * @return expression de l'intersection de this et other
+	 */
+	public MySetExpression intersection(MySetExpression other) {
+		return new Combination(ParallelAlgebra.Operation.INTERSECTION, this, other);
+	}
+
+	/**
+	 * @param other deuxième opérande
+	 * @return expression de la différence de this et other
+	 */
+	public MySetExpression difference(MySetExpression other) {
+		return new Combination(ParallelAlgebra.Operation.DIFFERENCE, this, other);
+	}
+
+	/**
+	 * @param other deuxième opérande
+	 * @return expression de la différence symétrique de this et other
+	 */
+	public MySetExpression symmetricDifference(MySetExpression other) {
+		return new Combination(ParallelAlgebra.Operation.SYMMETRIC_DIFFERENCE, this, other);
+	}
+
+	/**
+	 * @param set deuxième opérande
+	 * @return expression de l'union de this et set
+	 */
+	public MySetExpression union(MySet set) {
+		return this.union(of(set));
+	}
+
+	/**
+	 * @param set deuxième opérande
+	 * @return expression de l'intersection de this et set
+	 */
+	public MySetExpression intersection(MySet set) {
+		return this.intersection(of(set));
+	}
+
+	/**
+	 * @param set deuxième opérande
+	 * @return expression de la différence de this et set
+	 */
+	public MySetExpression difference(MySet set) {
+		return this.difference(of(set));
+	}
+
+	/**
+	 * @param set deuxième opérande
+	 * @return expression de la différence symétrique de this et set
+	 */
+	public MySetExpression symmetricDifference(MySet set) {
+		return this.symmetricDifference(of(set));
+	}
+
+	/**
+	 * @return nouvel ensemble, valeur de this ; les sous-ensembles des feuilles
+	 *         repris tels quels sont partagés (copiés avant modification)
+	 */
+	public MySet evaluate() {
+		MySet result = new MySet();
+		Cursor cursor = this.open();
+		for (int rang = cursor.next(Integer.MIN_VALUE); rang != NONE; rang = cursor.next(rang + 1)) {
+			SubSet subSet = cursor.at(rang);
+			if (subSet != null) {
+				result.append(subSet);
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * @return cardinal de la valeur de this, sans construire le résultat
+	 */
+	public long size() {
+		long size = 0;
+		Cursor cursor = this.open();
+		for (int rang = cursor.next(Integer.MIN_VALUE); rang != NONE; rang = cursor.next(rang + 1)) {
+			SubSet subSet = cursor.at(rang);
+			if (subSet != null) {
+				size += subSet.set.size();
+			}
+		}
+		return size;
+	}
+
+	/**
+	 * @return true si la valeur de this est vide (l'évaluation s'arrête au
+	 *         premier rang non vide)
+	 */
+	public boolean isEmpty() {
+		Cursor cursor = this.open();
+		for (int rang = cursor.next(Integer.MIN_VALUE); rang != NONE; rang = cursor.next(rang + 1)) {
+			if (cursor.at(rang) != null) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * @param value valeur à tester
+	 * @return true si value appartient à la valeur de this (seul le rang de
+	 *         value est évalué)
+	 */
+	public boolean containsValue(int value) {
+		SubSet subSet = this.open().at(value >> 8);
+		return subSet != null && subSet.set.contains(value & 0xFF);
+	}
+
+	/**
+	 * @return curseur d'évaluation de this, après réécriture
+	 */
+	abstract Cursor open();
+
+	/**
+	 * @return majorant du cardinal de la valeur de this
+	 */
+	abstract long estimate();
+
+	/**
+	 * État d'une évaluation. Les appels successifs de next() et at() doivent se
+	 * faire à rangs croissants.
+	 */
+	abstract static class Cursor {
+
+		/**
+		 * @param rang rang de départ
+		 * @return plus petit rang supérieur ou égal à rang où la valeur peut être
+		 *         non vide, NONE s'il n'y en a plus
+		 */
+		abstract int next(int rang);
+
+		/**
+		 * @param rang rang voulu
+		 * @return sous-ensemble non vide de la valeur au rang rang, null s'il est
+		 *         vide ; il est en lecture seule s'il est partagé
+		 */
+		abstract SubSet at(int rang);
+	}
+
+	/**
+	 * @return subSet s'il n'est pas partagé (il appartient alors à l'évaluation),
+	 *         une copie sinon
+	 */
+	private static SubSet writable(SubSet subSet) {
+		if (!subSet.shared) {
+			return subSet;
+		}
+		Metrics.subSetAllocated();
+		return subSet.copyOf();
+	}
+
+	/**
+	 * Feuille : ensemble lu à travers sa version figée.
+	 */
+	private static final class Leaf extends MySetExpression {
+
+		private final MySet set;
+
+		Leaf(MySet set) {
+			this.set = set;
+		}
+
+		@Override
+		Cursor open() {
+			MySetSnapshot snapshot = set.snapshot();
+			return new LeafCursor(snapshot.ranks(), snapshot.subSets());
+		}
+
+		@Override
+		long estimate() {
+			return set.longSize();
+		}
+	}
+
+	private static final class LeafCursor extends Cursor {
+
+		private final int[] ranks;
+		private final SubSet[] subSets;
+		private int index;
+
+		LeafCursor(int[] ranks, SubSet[] subSets) {
+			this.ranks = ranks;
+			this.subSets = subSets;
+		}
+
+		@Override
+		int next(int rang) {
+			if (index < ranks.length && ranks[index] < rang) {
+				int low = index;
+				int bound = 1;
+				while (low + bound < ranks.length && ranks[low + bound] < rang) {
+					low += bound;
+					bound <<= 1;
+				}
+				int i = Arrays.binarySearch(ranks, low + 1, Math.min(low + bound + 1, ranks.length), rang);
+				index = i >= 0 ? i : -i - 1;
+			}
+			return index < ranks.length ? ranks[index] : NONE;
+		}
+
+		@Override
+		SubSet at(int rang) {
+			return next(rang) == rang ? subSets[index] : null;
+		}
+	}
+
+	/**
+	 * Opération entre plusieurs opérandes : union, intersection ou différence
+	 * symétrique de tous, ou différence du premier et de tous les autres.
+	 */
+	private static final class Combination extends MySetExpression {
+
+		private final ParallelAlgebra.Operation operation;
+		private final List<MySetExpression> operands = new ArrayList<>();
+
+		/**
+		 * Les opérandes qui sont eux-mêmes des opérations de même nature sont mis
+		 * à plat : (A ∪ B) ∪ C devient ∪(A, B, C) et (A \ B) \ C devient \(A, B, C).
+		 */
+		Combination(ParallelAlgebra.Operation operation, MySetExpression left, MySetExpression right) {
+			this.operation = operation;
+			this.flatten(left);
+			if (operation == ParallelAlgebra.Operation.DIFFERENCE) {
+				operands.add(right);
+			} else {
+				this.flatten(right);
+			}
+		}
+
+		private void flatten(MySetExpression operand) {
+			if (operand instanceof Combination && ((Combination) operand).operation == operation) {
+				operands.addAll(((Combination) operand).operands);
+			} else {
+				operands.add(operand);
+			}
+		}
+
+		@Override
+		Cursor open() {
+			List<MySetExpression> kept = operands;
+			if (operation == ParallelAlgebra.Operation.UNION || operation == ParallelAlgebra.Operation.INTERSECTION) {
+				// A ∪ A = A ∩ A = A
+				kept = new ArrayList<>();
+				Map<MySet, Boolean> leaves = new IdentityHashMap<>();
+				for (MySetExpression operand : operands) {
+					if (!(operand instanceof Leaf) || leaves.put(((Leaf) operand).set, Boolean.TRUE) == null) {
+						kept.add(operand);
+					}
+				}
+				if (kept.size() == 1) {
+					return kept.get(0).open();
+				}
+			}
+			if (operation == ParallelAlgebra.Operation.INTERSECTION) {
+				Map<MySetExpression, Long> estimates = new IdentityHashMap<>();
+				for (MySetExpression operand : kept) {
+					estimates.put(operand, operand.estimate());
+				}
+				Collections.sort(kept, Comparator.comparingLong(estimates::get));
+			}
+			Cursor[] cursors = new Cursor[kept.size()];
+			for (int i = 0; i < cursors.length; ++i) {
+				cursors[i] = kept.get(i).open();
+			}
+			switch (operation) {
+			case UNION:
+				return new UnionCursor(cursors);
+			case INTERSECTION:
+				return new IntersectionCursor(cursors);
+			case DIFFERENCE:
+				return new DifferenceCursor(cursors);
+			default:
+				return new SymmetricDifferenceCursor(cursors);
+			}
+		}
+
+		@Override
+		long estimate() {
+			long result = operation == ParallelAlgebra.Operation.INTERSECTION ? Long.MAX_VALUE : 0;
+			for (MySetExpression operand : operands) {
+				switch (operation) {
+				case INTERSECTION:
+					result = Math.min(result, operand.estimate());
+					break;
+				case DIFFERENCE:
+					return operand.estimate();
+				default:
+					result += operand.estimate();
+				}
+			}
+			return result;
+		}
+	}
+
+	private static final class UnionCursor extends Cursor {
+
+		private final Cursor[] cursors;
+
+		UnionCursor(Cursor[] cursors) {
+			this.cursors = cursors;
+		}
+
+		@Override
+		int next(int rang) {
+			int result = NONE;
+			for (Cursor cursor : cursors) {
+				result = Math.min(result, cursor.next(rang));
+			}
+			return result;
+		}
+
+		@Override
+		SubSet at(int rang) {
+			SubSet result = null;
+			for (Cursor cursor : cursors) {
+				SubSet subSet = cursor.at(rang);
+				if (subSet == null) {
+					continue;
+				}
+				if (result == null) {
+					result = subSet;
+				} else {
+					result = writable(result);
+					result.set.union(subSet.set);
+				}
+			}
+			return result;
+		}
+	}
+
+	/**
+	 * Les curseurs sont rangés du plus petit opérande au plus grand.
+	 */
+	private static final class IntersectionCursor extends Cursor {
+
+		private final Cursor[] cursors;
+
+		IntersectionCursor(Cursor[] cursors) {
+			this.cursors = cursors;
+		}
+
+		/**
+		 * Chaque opérande à son tour avance jusqu'au rang proposé par le
+		 * précédent, jusqu'à ce que tous proposent le même.
+		 */
+		@Override
+		int next(int rang) {
+			int agreed = 0;
+			for (int i = 0; agreed < cursors.length; i = (i + 1) % cursors.length) {
+				int next = cursors[i].next(rang);
+				if (next == NONE) {
+					return NONE;
+				}
+				if (next == rang) {
+					++agreed;
+				} else {
+					rang = next;
+					agreed = 1;
+				}
+			}
+			return rang;
+		}
+
+		@Override
+		SubSet at(int rang) {
+			SubSet result = null;
+			for (Cursor cursor : cursors) {
+				SubSet subSet = cursor.at(rang);
+				if (subSet == null) {
+					return null;
+				}
+				if (result == null) {
+					result = subSet;
+				} else if (result != subSet) {
+					result = writable(result);
+					result.set.intersection(subSet.set);
+					if (result.set.isEmpty()) {
+						return null;
+					}
+				}
+			}
+			return result;
+		}
+	}
+
+	/**
+	 * Différence du premier curseur et de tous les autres.
+	 */
+	private static final class DifferenceCursor extends Cursor {
+
+		private final Cursor[] cursors;
+
+		DifferenceCursor(Cursor[] cursors) {
+			this.cursors = cursors;
+		}
+
+		@Override
+		int next(int rang) {
+			return cursors[0].next(rang);
+		}
+
+		@Override
+		SubSet at(int rang) {
+			SubSet result = cursors[0].at(rang);
+			for (int i = 1; i < cursors.length && result != null; ++i) {
+				SubSet subSet = cursors[i].at(rang);
+				if (subSet == result) {
+					result = null;
+				} else if (subSet != null) {
+					result = writable(result);
+					result.set.difference(subSet.set);
+					if (result.set.isEmpty()) {
+						result = null;
+					}
+				}
+			}
+			return result;
+		}
+	}
+
+	private static final class SymmetricDifferenceCursor extends Cursor {
+
+		private final Cursor[] cursors;
+
+		SymmetricDifferenceCursor(Cursor[] cursors) {
+			this.cursors = cursors;
+		}
+
+		@Override
+		int next(int rang) {
+			int result = NONE;
+			for (Cursor cursor : cursors) {
+				result = Math.min(result, cursor.next(rang));
+			}
+			return result;
+		}
+
+		@Override
+		SubSet at(int rang) {
+			SubSet result = null;
+			for (Cursor cursor : cursors) {
+				SubSet subSet = cursor.at(rang);
+				if (subSet == null) {
+					continue;
+				}
+				if (result == null) {
+					result = subSet;
+				} else {
+					result = writable(result);
+					result.set.symmetricDifference(subSet.set);
+				}
+			}
+			return result == null || result.set.isEmpty() ? null : result;
+		}
+	}
+}
@@ -0,0 +1,48 @@
+package ci.miage.prg.list;
+
+import java.util.Map;
+
+/**
+ * Vue JMX des mesures rassemblées par JmxMetricsSink ; les tables sont indexées
+ * par le nom de l'opération ou du compteur.
+ *
+ * @author Yeo François De Sales Gneneman <foursov@univ-rennes.fr>
+ * @author Yapi Yapo <foursov@univ-rennes.fr>
+ * @version 1.0
+ * @since 2026-10-17
+ */
+
+public interface MySetMetricsMXBean {
+
+	/**
+	 * @return nombre d'exécutions de chaque opération
+	 */
+	Map<String, Long> getOperationCounts();
+
+	/**
+	 * @return durée totale de chaque opération, en nanosecondes
+	 */
+	Map<String, Long> getTotalNanos();
+
+	/**
+	 * @return médiane approchée (à un facteur 2 près) de la durée de chaque
+	 *         opération, en nanosecondes
+	 */
+	Map<String, Long> getLatencyP50Nanos();
+
+	/**
+	 * @return 99e centile approché (à un facteur 2 près) de la durée de chaque
+	 *         opération, en nanosecondes
+	 */
+	Map<String, Long> getLatencyP99Nanos();
+
+	/**
+	 * @return valeur de chaque compteur d'événements
+	 */
+	Map<String, Long> getCounters();
+
+	/**
+	 * Remettre toutes les mesures à zéro.
+	 */
+	void reset();
+}
@@ -0,0 +1,159 @@
+package ci.miage.prg.list;
+
+import java.util.NoSuchElementException;
+import java.util.OptionalInt;
+
+/**
+ * Version figée d'un MySet, obtenue par MySet.snapshot(). Elle ne peut plus
+ * changer : ses sous-ensembles sont partagés avec l'ensemble d'origine, qui les
+ * copie avant de les modifier. Elle peut donc être lue par autant de fils que
+ * voulu, sans verrou, pendant que l'ensemble d'origine continue d'être modifié
+ * par son propre fil.
+ *
+ * @author Yeo François De Sales Gneneman <foursov@univ-rennes.fr>
+ * @author Yapi Yapo <foursov@univ-rennes.fr>
+ * @version 1.0
+ * @since 2026-10-17
+ */
+
+public final class MySetSnapshot {
+
+	/**
+	 * Rangs triés et cumul des cardinaux des sous-ensembles partagés.
+	 */
+	private final OrderIndex index;
+
+	/**
+	 * @param subSets sous-ensembles partagés, triés par rang
+	 */
+	MySetSnapshot(SubSet[] subSets) {
+		index = new OrderIndex(subSets);
+	}
+
+	/**
+	 * @return rangs des sous-ensembles, dans l'ordre croissant (à ne pas
+	 *         modifier)
+	 */
+	int[] ranks() {
+		return index.ranks();
+	}
+
+	/**
+	 * @return sous-ensembles partagés, triés par rang (à ne pas modifier)
+	 */
+	SubSet[] subSets() {
+		return index.subSets();
+	}
+
+	/**
+	 * @param value valeur à tester
+	 * @return true si value appartient à this, false sinon
+	 */
+	public boolean containsValue(int value) {
+		return index.containsValue(value);
+	}
+
+	/**
+	 * @return cardinal de this, plafonné à Integer.MAX_VALUE (cf longSize())
+	 */
+	public int size() {
+		return (int) Math.min(index.size(), Integer.MAX_VALUE);
+	}
+
+	/**
+	 * @return cardinal de this
+	 */
+	public long longSize() {
+		return index.size();
+	}
+
+	/**
+	 * @return true si this est vide, false sinon
+	 */
+	public boolean isEmpty() {
+		return index.size() == 0;
+	}
+
+	/**
+	 * @param x valeur quelconque
+	 * @return nombre de valeurs de this inférieures ou égales à x
+	 */
+	public long rank(int x) {
+		return index.rank(x);
+	}
+
+	/**
+	 * @param k indice, de 0 à longSize() - 1
+	 * @return (k + 1)-ième plus petite valeur de this
+	 */
+	public int select(long k) {
+		return index.select(k);
+	}
+
+	/**
+	 * @return plus petite valeur de this
+	 * @throws NoSuchElementException si this est vide
+	 */
+	public int first() {
+		return index.first();
+	}
+
+	/**
+	 * @return plus grande valeur de this
+	 * @throws NoSuchElementException si this est vide
+	 */
+	public int last() {
+		return index.last();
+	}
+
+	/**
+	 * @param x valeur quelconque
+	 * @return plus petite valeur de this supérieure ou égale à x, vide à défaut
+	 */
+	public OptionalInt ceiling(int x) {
+		return index.ceiling(x);
+	}
+
+	/**
+	 * @param x valeur quelconque
+	 * @return plus grande valeur de this inférieure ou égale à x, vide à défaut
+	 */
+	public OptionalInt floor(int x) {
+		return index.floor(x);
+	}
+
+	/**
+	 * @param x valeur quelconque
+	 * @return plus petite valeur de this strictement supérieure à x, vide à
+	 *         défaut
+	 */
+	public OptionalInt higher(int x) {
+		return index.higher(x);
+	}
+
+	/**
+	 * @param x valeur quelconque
+	 * @return plus grande valeur de this strictement inférieure à x, vide à
+	 *         défaut
+	 */
+	public OptionalInt lower(int x) {
+		return index.lower(x);
+	}
+
+	/**
+	 * @return nouvel ensemble modifiable de même contenu que this, qui partage
+	 *         ses sous-ensembles
+	 */
+	public MySet toMySet() {
+		MySet result = new MySet();
+		for (SubSet subSet : index.subSets()) {
+			result.append(subSet);
+		}
+		return result;
+	}
+
+	@Override
+	public String toString() {
+		return toMySet().toString();
+	}
+}
@@ -0,0 +1,276 @@
+package ci.miage.prg.list;
+
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+import java.util.OptionalInt;
+
+import ci.miage.prg.list_util.Iterator;
+
+/**
+ * Rangs triés des sous-ensembles et cumul de leurs cardinaux, sur lesquels
+ * reposent les requêtes d'ordre (rank, select, ceiling...) de MySet et de
+ * MySetSnapshot : une dichotomie dans les rangs ou dans les cumuls, puis un
+ * pas dans la carte de bits trouvée.
+ * <p>
+ * Celle d'un MySet est tenue à jour par morceaux : chaque modification d'un
+ * rang la déclare périmée à partir de ce rang (invalidate), et la requête
+ * suivante ne reprend que les sous-ensembles de rang supérieur ou égal au plus
+ * petit rang modifié (update). Les sous-ensembles ne sont pas marqués
+ * partagés, et ne doivent donc pas être lus tant que la table est périmée.
+ *
+ * @author Yeo François De Sales Gneneman <foursov@univ-rennes.fr>
+ * @author Yapi Yapo <foursov@univ-rennes.fr>
+ * @version 1.0
+ * @since 2026-10-17
+ */
+
+final class OrderIndex {
+
+	/**
+	 * Rangs des sous-ensembles, dans l'ordre croissant (length premières cases).
+	 */
+	private int[] ranks;
+	private SubSet[] subSets;
+	/**
+	 * prefix[i] est le nombre de valeurs des sous-ensembles d'indice inférieur à
+	 * i (prefix[length] est le cardinal total).
+	 */
+	private long[] prefix;
+	private int length;
+	/**
+	 * Plus petit rang modifié depuis la dernière mise à jour :
+	 * Integer.MAX_VALUE si la table est à jour, Integer.MIN_VALUE si elle est
+	 * entièrement à refaire.
+	 */
+	private int stale;
+
+	/**
+	 * Table vide, entièrement à construire.
+	 */
+	OrderIndex() {
+		ranks = new int[0];
+		subSets = new SubSet[0];
+		prefix = new long[1];
+		stale = Integer.MIN_VALUE;
+	}
+
+	/**
+	 * @param subSets sous-ensembles triés par rang (tableau repris tel quel)
+	 */
+	OrderIndex(SubSet[] subSets) {
+		this.subSets = subSets;
+		length = subSets.length;
+		ranks = new int[length];
+		prefix = new long[length + 1];
+		for (int i = 0; i < length; ++i) {
+			ranks[i] = subSets[i].rank;
+			prefix[i + 1] = prefix[i] + subSets[i].set.size();
+		}
+		stale = Integer.MAX_VALUE;
+	}
+
+	/**
+	 * Déclarer la table périmée à partir du rang rang.
+	 *
+	 * @param rang rang qui va changer
+	 */
+	void invalidate(int rang) {
+		stale = Math.min(stale, rang);
+	}
+
+	/**
+	 * Déclarer la table entièrement périmée.
+	 */
+	void invalidateAll() {
+		stale = Integer.MIN_VALUE;
+	}
+
+	/**
+	 * @return true si la table doit être mise à jour avant d'être lue
+	 */
+	boolean isStale() {
+		return stale != Integer.MAX_VALUE;
+	}
+
+	/**
+	 * @return plus petit rang modifié depuis la dernière mise à jour
+	 */
+	int staleRank() {
+		return stale;
+	}
+
+	/**
+	 * @return nombre de sous-ensembles encore à jour (ceux de rang inférieur à
+	 *         staleRank())
+	 */
+	int staleIndex() {
+		if (stale == Integer.MIN_VALUE) {
+			return 0;
+		}
+		int i = Arrays.binarySearch(ranks, 0, length, stale);
+		return i >= 0 ? i : -i - 1;
+	}
+
+	/**
+	 * Reprendre la table à partir de l'indice staleIndex().
+	 *
+	 * @param it    itérateur placé sur le premier sous-ensemble de rang
+	 *              supérieur ou égal à staleRank() (sur le premier de tous si
+	 *              staleIndex() vaut 0)
+	 * @param total nombre de sous-ensembles de l'ensemble
+	 */
+	void update(Iterator<SubSet> it, int total) {
+		int i = this.staleIndex();
+		if (ranks.length < total) {
+			int capacity = Math.max(total, ranks.length + (ranks.length >> 1));
+			ranks = Arrays.copyOf(ranks, capacity);
+			subSets = Arrays.copyOf(subSets, capacity);
+			prefix = Arrays.copyOf(prefix, capacity + 1);
+		}
+		while (!it.isOnFlag()) {
+			SubSet subSet = it.getValue();
+			ranks[i] = subSet.rank;
+			subSets[i] = subSet;
+			prefix[i + 1] = prefix[i] + subSet.set.size();
+			++i;
+			it.goForward();
+		}
+		if (i < length) {
+			Arrays.fill(subSets, i, length, null);
+		}
+		length = i;
+		stale = Integer.MAX_VALUE;
+	}
+
+	/**
+	 * @return rangs des sous-ensembles, dans l'ordre croissant (tableau entier
+	 *         pour une table construite à partir d'un tableau)
+	 */
+	int[] ranks() {
+		return ranks;
+	}
+
+	/**
+	 * @return sous-ensembles triés par rang (tableau entier pour une table
+	 *         construite à partir d'un tableau)
+	 */
+	SubSet[] subSets() {
+		return subSets;
+	}
+
+	/**
+	 * @return cardinal total
+	 */
+	long size() {
+		return prefix[length];
+	}
+
+	/**
+	 * @param value valeur à tester
+	 * @return true si value appartient à l'ensemble, false sinon
+	 */
+	boolean containsValue(int value) {
+		int i = Arrays.binarySearch(ranks, 0, length, value >> 8);
+		return i >= 0 && subSets[i].set.contains(value & 0xFF);
+	}
+
+	/**
+	 * @param x valeur quelconque
+	 * @return nombre de valeurs inférieures ou égales à x
+	 */
+	long rank(int x) {
+		int i = Arrays.binarySearch(ranks, 0, length, x >> 8);
+		return i >= 0 ? prefix[i] + subSets[i].set.rank(x & 0xFF) : prefix[-i - 1];
+	}
+
+	/**
+	 * @param k indice, de 0 à size() - 1
+	 * @return (k + 1)-ième plus petite valeur
+	 */
+	int select(long k) {
+		if (k < 0 || k >= prefix[length]) {
+			throw new IndexOutOfBoundsException(k);
+		}
+		int i = Arrays.binarySearch(prefix, 0, length + 1, k);
+		if (i < 0) {
+			i = -i - 2;
+		}
+		return (ranks[i] << 8) + subSets[i].set.select((int) (k - prefix[i]));
+	}
+
+	/**
+	 * @return plus petite valeur
+	 * @throws NoSuchElementException si l'ensemble est vide
+	 */
+	int first() {
+		if (length == 0) {
+			throw new NoSuchElementException();
+		}
+		return (ranks[0] << 8) + subSets[0].set.nextValue(0);
+	}
+
+	/**
+	 * @return plus grande valeur
+	 * @throws NoSuchElementException si l'ensemble est vide
+	 */
+	int last() {
+		if (length == 0) {
+			throw new NoSuchElementException();
+		}
+		int i = length - 1;
+		return (ranks[i] << 8) + subSets[i].set.previousValue(SmallBitmap.SET_SIZE - 1);
+	}
+
+	/**
+	 * @param x valeur quelconque
+	 * @return plus petite valeur supérieure ou égale à x, vide à défaut
+	 */
+	OptionalInt ceiling(int x) {
+		int i = Arrays.binarySearch(ranks, 0, length, x >> 8);
+		if (i >= 0) {
+			int v = subSets[i].set.nextValue(x & 0xFF);
+			if (v >= 0) {
+				return OptionalInt.of((ranks[i] << 8) + v);
+			}
+			++i;
+		} else {
+			i = -i - 1;
+		}
+		return i < length ? OptionalInt.of((ranks[i] << 8) + subSets[i].set.nextValue(0)) : OptionalInt.empty();
+	}
+
+	/**
+	 * @param x valeur quelconque
+	 * @return plus grande valeur inférieure ou égale à x, vide à défaut
+	 */
+	OptionalInt floor(int x) {
+		int i = Arrays.binarySearch(ranks, 0, length, x >> 8);
+		if (i >= 0) {
+			int v = subSets[i].set.previousValue(x & 0xFF);
+			if (v >= 0) {
+				return OptionalInt.of((ranks[i] << 8) + v);
+			}
+			--i;
+		} else {
+			i = -i - 2;
+		}
+		return i >= 0 ? OptionalInt.of((ranks[i] << 8) + subSets[i].set.previousValue(SmallBitmap.SET_SIZE - 1))
+				: OptionalInt.empty();
+	}
+
+	/**
+	 * @param x valeur quelconque
+	 * @return plus petite valeur strictement supérieure à x, vide à défaut
+	 */
+	OptionalInt higher(int x) {
+		return x == Integer.MAX_VALUE ? OptionalInt.empty() : ceiling(x + 1);
+	}
+
+	/**
+	 * @param x valeur quelconque
+	 * @return plus grande valeur strictement inférieure à x, vide à défaut
+	 */
+	OptionalInt lower(int x) {
+		return x == Integer.MIN_VALUE ? OptionalInt.empty() : floor(x - 1);
+	}
+}
@@ -0,0 +1,226 @@
+package ci.miage.prg.list;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Opérations ensemblistes de MySet réparties sur un ForkJoinPool. Les
+ * sous-ensembles des deux opérandes, rangés dans des tableaux par ordre
+ * croissant des rangs, sont découpés en segments de mêmes bornes de rangs ;
+ * chaque segment est fusionné par une tâche indépendante, puis les résultats
+ * sont mis bout à bout dans l'ordre des segments.
+ *
+ * @author Yeo François De Sales Gneneman <foursov@univ-rennes.fr>
+ * @author Yapi Yapo <foursov@univ-rennes.fr>
+ * @version 1.0
+ * @since 2026-10-17
+ */
+
+final class ParallelAlgebra {
+
+	/**
+	 * Opération ensembliste à effectuer.
+	 */
+	enum Operation {
+		UNION, INTERSECTION, DIFFERENCE, SYMMETRIC_DIFFERENCE
+	}
+
+	/**
+	 * Nombre minimal de sous-ensembles d'un segment.
+	 */
+	static final int MIN_SEGMENT = 1 << 10;
+	/**
+	 * Nombre de segments par fil du pool, pour équilibrer la charge.
+	 */
+	private static final int SEGMENTS_PER_THREAD = 4;
+
+	private ParallelAlgebra() {
+	}
+
+	/**
+	 * Fusion des sous-ensembles a[aFrom, aTo) et b[bFrom, bTo), de mêmes bornes
+	 * de rangs.
+	 */
+	private static final class Segment extends RecursiveAction {
+
+		private static final long serialVersionUID = 1L;
+
+		private final SubSet[] a;
+		private final SubSet[] b;
+		private final int aFrom;
+		private final int aTo;
+		private final int bFrom;
+		private final int bTo;
+		private final Operation operation;
+		private SubSet[] result;
+		private int count;
+
+		Segment(SubSet[] a, int aFrom, int aTo, SubSet[] b, int bFrom, int bTo, Operation operation) {
+			this.a = a;
+			this.aFrom = aFrom;
+			this.aTo = aTo;
+			this.b = b;
+			this.bFrom = bFrom;
+			this.bTo = bTo;
+			this.operation = operation;
+		}
+
+		/**
+		 * Les sous-ensembles propres à a sont repris tels quels dans le
+		 * résultat et ceux propres à b y entrent partagés ; ceux des rangs
+		 * communs sont calculés dans de nouveaux sous-ensembles, sans toucher
+		 * aux opérandes.
+		 */
+		@Override
+		protected void compute() {
+			boolean keepB = operation == Operation.UNION || operation == Operation.SYMMETRIC_DIFFERENCE;
+			result = new SubSet[(aTo - aFrom) + (keepB ? bTo - bFrom : 0)];
+			int i = aFrom;
+			int j = bFrom;
+			while (i < aTo || (keepB && j < bTo)) {
+				int rankA = i < aTo ? a[i].rank : Integer.MAX_VALUE;
+				int rankB = j < bTo ? b[j].rank : Integer.MAX_VALUE;
+				if (rankA < rankB) {
+					if (operation != Operation.INTERSECTION) {
+						result[count++] = a[i];
+					}
+					++i;
+				} else if (rankA > rankB) {
+					if (keepB) {
+						b[j].shared = true;
+						result[count++] = b[j];
+					}
+					++j;
+				} else {
+					SubSet subSet = combine(a[i], b[j], operation);
+					if (subSet != null) {
+						result[count++] = subSet;
+					}
+					++i;
+					++j;
+				}
+			}
+		}
+	}
+
+	/**
+	 * @param subSet1   sous-ensemble du premier opérande
+	 * @param subSet2   sous-ensemble du deuxième opérande, de même rang
+	 * @param operation opération à effectuer
+	 * @return résultat de operation entre subSet1 et subSet2 (l'un d'eux,
+	 *         marqué partagé, ou un nouveau sous-ensemble), ou null s'il est
+	 *         vide ; les opérandes ne sont pas modifiés
+	 */
+	static SubSet combine(SubSet subSet1, SubSet subSet2, Operation operation) {
+		boolean same = subSet1 == subSet2;
+		boolean larger1 = subSet1.set.size() >= subSet2.set.size();
+		SubSet result;
+		switch (operation) {
+		case UNION:
+			if (same) {
+				subSet1.shared = true;
+				return subSet1;
+			}
+			result = larger1 ? subSet1.copyOf() : subSet2.copyOf();
+			result.set.union(larger1 ? subSet2.set : subSet1.set);
+			break;
+		case INTERSECTION:
+			if (same) {
+				subSet1.shared = true;
+				return subSet1;
+			}
+			result = larger1 ? subSet2.copyOf() : subSet1.copyOf();
+			result.set.intersection(larger1 ? subSet1.set : subSet2.set);
+			break;
+		case DIFFERENCE:
+			if (same) {
+				return null;
+			}
+			result = subSet1.copyOf();
+			result.set.difference(subSet2.set);
+			break;
+		default:
+			if (same) {
+				return null;
+			}
+			result = subSet1.copyOf();
+			result.set.symmetricDifference(subSet2.set);
+		}
+		Metrics.subSetAllocated();
+		return result.set.isEmpty() ? null : result;
+	}
+
+	/**
+	 * @param subSets sous-ensembles triés par rang
+	 * @param from    début de la recherche
+	 * @param to      fin (exclue) de la recherche
+	 * @param rank    rang cherché
+	 * @return indice du premier sous-ensemble de rang supérieur ou égal à rank
+	 */
+	private static int lowerBound(SubSet[] subSets, int from, int to, int rank) {
+		int low = from;
+		int high = to;
+		while (low < high) {
+			int middle = (low + high) >>> 1;
+			if (subSets[middle].rank < rank) {
+				low = middle + 1;
+			} else {
+				high = middle;
+			}
+		}
+		return low;
+	}
+
+	/**
+	 * Fusionner a et b segment par segment sur pool. Ni a ni b ne sont
+	 * modifiés : leurs sous-ensembles peuvent seulement être partagés avec le
+	 * résultat, si bien qu'un échec d'une tâche laisse les deux opérandes
+	 * intacts.
+	 *
+	 * @param a         sous-ensembles du premier opérande, triés par rang
+	 * @param b         sous-ensembles du deuxième opérande, triés par rang
+	 * @param operation opération à effectuer
+	 * @param pool      pool exécutant les segments
+	 * @return sous-ensembles non vides du résultat, triés par rang
+	 */
+	static SubSet[] merge(SubSet[] a, SubSet[] b, Operation operation, ForkJoinPool pool) {
+		SubSet[] larger = a.length >= b.length ? a : b;
+		int segments = Math.max(1,
+				Math.min(pool.getParallelism() * SEGMENTS_PER_THREAD, larger.length / MIN_SEGMENT));
+		Segment[] tasks = new Segment[segments];
+		int aFrom = 0;
+		int bFrom = 0;
+		for (int s = 0; s < segments; ++s) {
+			int aTo = a.length;
+			int bTo = b.length;
+			if (s < segments - 1) {
+				int bound = larger[(int) ((long) larger.length * (s + 1) / segments)].rank;
+				aTo = lowerBound(a, aFrom, a.length, bound);
+				bTo = lowerBound(b, bFrom, b.length, bound);
+			}
+			tasks[s] = new Segment(a, aFrom, aTo, b, bFrom, bTo, operation);
+			aFrom = aTo;
+			bFrom = bTo;
+		}
+		pool.invoke(new RecursiveAction() {
+			private static final long serialVersionUID = 1L;
+
+			@Override
+			protected void compute() {
+				ForkJoinTask.invokeAll(tasks);
+			}
+		});
+		int length = 0;
+		for (Segment task : tasks) {
+			length += task.count;
+		}
+		SubSet[] result = new SubSet[length];
+		int position = 0;
+		for (Segment task : tasks) {
+			System.arraycopy(task.result, 0, result, position, task.count);
+			position += task.count;
+		}
+		return result;
+	}
+}
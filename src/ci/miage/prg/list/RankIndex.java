@@ -0,0 +1,163 @@
+package ci.miage.prg.list;
+
+import java.util.Arrays;
+
+/**
+ * Table d'accès rang -> sous-ensemble à deux niveaux. Le rang d'une valeur
+ * (ses 24 bits de poids fort) est découpé en une clé de page (les 16 bits de
+ * poids fort de la valeur) et une case dans la page (les 8 bits suivants). Les
+ * clés des pages occupées sont rangées dans l'ordre croissant et trouvées par
+ * dichotomie ; une page n'existe que tant qu'elle contient au moins un
+ * sous-ensemble, si bien que la mémoire reste proportionnelle aux pages
+ * occupées.
+ *
+ * @author Yeo François De Sales Gneneman <foursov@univ-rennes.fr>
+ * @author Yapi Yapo <foursov@univ-rennes.fr>
+ * @version 1.0
+ * @since 2026-10-17
+ */
+
+final class RankIndex {
+
+	/**
+	 * Nombre de bits du rang désignant la case dans une page.
+	 */
+	static final int PAGE_BITS = 8;
+	static final int PAGE_SIZE = 1 << PAGE_BITS;
+	private static final int INITIAL_CAPACITY = 4;
+
+	/**
+	 * Clés des pages occupées, dans l'ordre croissant.
+	 */
+	private int[] keys = new int[INITIAL_CAPACITY];
+	private SubSet[][] pages = new SubSet[INITIAL_CAPACITY][];
+	/**
+	 * Nombre de cases non vides de chaque page.
+	 */
+	private int[] counts = new int[INITIAL_CAPACITY];
+	/**
+	 * Nombre de pages occupées.
+	 */
+	private int size;
+	/**
+	 * Nombre de sous-ensembles de la table.
+	 */
+	private int entries;
+	/**
+	 * Indice de la dernière page trouvée (-1 si aucune) : les accès successifs
+	 * portent le plus souvent sur des rangs voisins.
+	 */
+	private int last = -1;
+
+	/**
+	 * @param key clé de page
+	 * @return indice de la page de clé key, ou (-(point d'insertion) - 1) si elle
+	 *         est absente
+	 */
+	private int find(int key) {
+		if (last >= 0 && keys[last] == key) {
+			return last;
+		}
+		int i = Arrays.binarySearch(keys, 0, size, key);
+		if (i >= 0) {
+			last = i;
+		}
+		return i;
+	}
+
+	/**
+	 * @param rank rang cherché
+	 * @return sous-ensemble de rang rank, ou null s'il est absent
+	 */
+	SubSet get(int rank) {
+		int i = find(rank >> PAGE_BITS);
+		return i < 0 ? null : pages[i][rank & (PAGE_SIZE - 1)];
+	}
+
+	/**
+	 * Associer subSet au rang rank (en remplaçant le sous-ensemble précédent).
+	 *
+	 * @param rank   rang de subSet
+	 * @param subSet sous-ensemble non null
+	 */
+	void put(int rank, SubSet subSet) {
+		int i = find(rank >> PAGE_BITS);
+		if (i < 0) {
+			i = -i - 1;
+			insertPage(i, rank >> PAGE_BITS);
+		}
+		SubSet[] page = pages[i];
+		int slot = rank & (PAGE_SIZE - 1);
+		if (page[slot] == null) {
+			++counts[i];
+			++entries;
+		}
+		page[slot] = subSet;
+	}
+
+	/**
+	 * Retirer le sous-ensemble de rang rank (sans effet s'il est absent) et
+	 * libérer sa page si elle devient vide.
+	 *
+	 * @param rank rang à retirer
+	 */
+	void remove(int rank) {
+		int i = find(rank >> PAGE_BITS);
+		if (i >= 0) {
+			SubSet[] page = pages[i];
+			int slot = rank & (PAGE_SIZE - 1);
+			if (page[slot] != null) {
+				page[slot] = null;
+				--entries;
+				if (--counts[i] == 0) {
+					removePage(i);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Vider la table.
+	 */
+	void clear() {
+		keys = new int[INITIAL_CAPACITY];
+		pages = new SubSet[INITIAL_CAPACITY][];
+		counts = new int[INITIAL_CAPACITY];
+		size = 0;
+		entries = 0;
+		last = -1;
+	}
+
+	/**
+	 * @return nombre de sous-ensembles de la table
+	 */
+	int entries() {
+		return entries;
+	}
+
+	private void insertPage(int i, int key) {
+		if (size == keys.length) {
+			int capacity = size * 2;
+			keys = Arrays.copyOf(keys, capacity);
+			pages = Arrays.copyOf(pages, capacity);
+			counts = Arrays.copyOf(counts, capacity);
+		}
+		System.arraycopy(keys, i, keys, i + 1, size - i);
+		System.arraycopy(pages, i, pages, i + 1, size - i);
+		System.arraycopy(counts, i, counts, i + 1, size - i);
+		keys[i] = key;
+		pages[i] = new SubSet[PAGE_SIZE];
+		counts[i] = 0;
+		++size;
+		last = i;
+	}
+
+	private void removePage(int i) {
+		--size;
+		System.arraycopy(keys, i + 1, keys, i, size - i);
+		System.arraycopy(pages, i + 1, pages, i, size - i);
+		System.arraycopy(counts, i + 1, counts, i, size - i);
+		pages[size] = null;
+		last = -1;
+	}
+}
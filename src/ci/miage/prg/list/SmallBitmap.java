@@ -0,0 +1,1015 @@
+package ci.miage.prg.list;
+
+import java.util.Arrays;
+import java.util.function.IntConsumer;
+
+import ci.miage.prg.list_util.SmallSet;
+
+/**
+ * Petit ensemble d'entiers de [0, 255] rangé sous la plus compacte de trois
+ * formes, choisie automatiquement d'après son contenu :
+ * <ul>
+ * <li>ARRAY : tableau trié des valeurs, un octet par valeur, tant qu'il y a
+ * moins de ARRAY_MAX éléments ;</li>
+ * <li>BITMAP : carte de bits de quatre mots de 64 bits ;</li>
+ * <li>RUNS : suite d'intervalles [début, fin], deux octets par intervalle,
+ * quand l'ensemble est fait de quelques plages de valeurs consécutives.</li>
+ * </ul>
+ * Les opérations ensemblistes ont un chemin propre à chaque couple de formes
+ * qui le justifie (tableau avec toute forme, intervalles avec intervalles,
+ * carte de bits avec toute forme sans la convertir) ; les autres passent par
+ * une carte de bits, mot par mot. La forme du résultat est ensuite choisie à
+ * nouveau. Le cardinal est tenu à jour.
+ *
+ * @author Yeo François De Sales Gneneman <foursov@univ-rennes.fr>
+ * @author Yapi Yapo <foursov@univ-rennes.fr>
+ * @version 2.0
+ * @since 2026-10-17
+ */
+
+public class SmallBitmap {
+
+	/**
+	 * Nombre de valeurs possibles.
+	 */
+	public static final int SET_SIZE = 256;
+	/**
+	 * Nombre de mots de 64 bits de la carte.
+	 */
+	static final int WORDS = SET_SIZE / 64;
+	/**
+	 * Cardinal à partir duquel le tableau trié n'est plus plus petit que la
+	 * carte de bits.
+	 */
+	static final int ARRAY_MAX = WORDS * 8;
+
+	private static final byte ARRAY = 0;
+	private static final byte BITMAP = 1;
+	private static final byte RUNS = 2;
+
+	private static final int OR = 0;
+	private static final int AND_NOT = 1;
+	private static final int XOR = 2;
+
+	private static final byte[] NONE = new byte[0];
+
+	/**
+	 * Forme courante et cardinal (sur un octet et deux octets, pour que l'objet
+	 * tienne dans 24 octets).
+	 */
+	private byte kind;
+	private short size;
+	/**
+	 * Carte de bits (forme BITMAP, null sinon).
+	 */
+	private long[] words;
+	/**
+	 * Valeurs triées (forme ARRAY) ou couples début, fin des intervalles (forme
+	 * RUNS), sans case libre ; null pour la forme BITMAP.
+	 */
+	private byte[] data;
+
+	public SmallBitmap() {
+		kind = ARRAY;
+		data = NONE;
+	}
+
+	/**
+	 * @param set petit ensemble à convertir
+	 */
+	public SmallBitmap(SmallSet set) {
+		long[] w = new long[WORDS];
+		for (int i = 0; i < SET_SIZE; ++i) {
+			if (set.contains(i)) {
+				w[i >>> 6] |= 1L << i;
+			}
+		}
+		encode(w);
+	}
+
+	private SmallBitmap(SmallBitmap other) {
+		kind = other.kind;
+		size = other.size;
+		words = other.words == null ? null : other.words.clone();
+		data = other.data == null || other.data.length == 0 ? other.data : other.data.clone();
+	}
+
+	/**
+	 * @param bits   tableau de mots
+	 * @param offset indice du premier des quatre mots de la carte
+	 * @return ensemble des valeurs de la carte rangée dans bits à partir de
+	 *         offset
+	 */
+	static SmallBitmap fromWords(long[] bits, int offset) {
+		SmallBitmap result = new SmallBitmap();
+		result.encode(Arrays.copyOfRange(bits, offset, offset + WORDS));
+		return result;
+	}
+
+	/**
+	 * Écrire la carte de bits de this dans dst à partir de offset.
+	 *
+	 * @param dst    tableau de mots
+	 * @param offset indice du premier des quatre mots écrits
+	 */
+	void copyWords(long[] dst, int offset) {
+		if (kind == BITMAP) {
+			System.arraycopy(words, 0, dst, offset, WORDS);
+		} else {
+			Arrays.fill(dst, offset, offset + WORDS, 0L);
+			applyTo(dst, offset, OR);
+		}
+	}
+
+	/**
+	 * @return carte de bits de this : celle de this s'il est sous la forme
+	 *         BITMAP, une nouvelle carte sinon
+	 */
+	private long[] bits() {
+		if (kind == BITMAP) {
+			return words;
+		}
+		long[] w = new long[WORDS];
+		applyTo(w, 0, OR);
+		return w;
+	}
+
+	/**
+	 * Combiner les valeurs de this avec la carte rangée dans w à partir de
+	 * offset, sans convertir this en carte de bits.
+	 *
+	 * @param w      tableau de mots modifié
+	 * @param offset indice du premier mot de la carte
+	 * @param op     OR, AND_NOT ou XOR
+	 */
+	private void applyTo(long[] w, int offset, int op) {
+		if (kind == BITMAP) {
+			for (int i = 0; i < WORDS; ++i) {
+				w[offset + i] = combine(w[offset + i], words[i], op);
+			}
+		} else if (kind == ARRAY) {
+			for (byte b : data) {
+				int v = b & 0xFF;
+				w[offset + (v >>> 6)] = combine(w[offset + (v >>> 6)], 1L << v, op);
+			}
+		} else {
+			for (int r = 0; r < data.length; r += 2) {
+				int lo = data[r] & 0xFF;
+				int hi = data[r + 1] & 0xFF;
+				for (int i = lo >>> 6; i <= hi >>> 6; ++i) {
+					w[offset + i] = combine(w[offset + i], intervalMask(i, lo, hi), op);
+				}
+			}
+		}
+	}
+
+	private static long combine(long word, long mask, int op) {
+		switch (op) {
+		case OR:
+			return word | mask;
+		case AND_NOT:
+			return word & ~mask;
+		default:
+			return word ^ mask;
+		}
+	}
+
+	/**
+	 * Donner à this le contenu de la carte w, sous la forme la plus compacte (à
+	 * taille égale, la carte de bits est préférée au tableau, et le tableau aux
+	 * intervalles).
+	 *
+	 * @param w carte de bits (conservée par this si la forme BITMAP est choisie)
+	 */
+	private void encode(long[] w) {
+		int n = 0;
+		int runs = 0;
+		long carry = 0L;
+		for (int i = 0; i < WORDS; ++i) {
+			n += Long.bitCount(w[i]);
+			runs += Long.bitCount(w[i] & ~((w[i] << 1) | carry));
+			carry = w[i] >>> 63;
+		}
+		size = (short) n;
+		if (2 * runs < Math.min(n, ARRAY_MAX)) {
+			kind = RUNS;
+			words = null;
+			data = new byte[2 * runs];
+			int k = 0;
+			int v = nextSet(w, 0);
+			while (v >= 0) {
+				int end = nextClear(w, v);
+				data[k++] = (byte) v;
+				data[k++] = (byte) (end - 1);
+				v = nextSet(w, end);
+			}
+		} else if (n < ARRAY_MAX) {
+			kind = ARRAY;
+			words = null;
+			data = n == 0 ? NONE : new byte[n];
+			int k = 0;
+			for (int i = 0; i < WORDS; ++i) {
+				long word = w[i];
+				while (word != 0) {
+					data[k++] = (byte) ((i << 6) + Long.numberOfTrailingZeros(word));
+					word &= word - 1;
+				}
+			}
+		} else {
+			kind = BITMAP;
+			words = w;
+			data = null;
+		}
+	}
+
+	/**
+	 * @return première valeur de w supérieure ou égale à from, -1 à défaut
+	 */
+	private static int nextSet(long[] w, int from) {
+		if (from >= SET_SIZE) {
+			return -1;
+		}
+		int i = from >>> 6;
+		long word = w[i] & (-1L << from);
+		while (word == 0) {
+			if (++i == WORDS) {
+				return -1;
+			}
+			word = w[i];
+		}
+		return (i << 6) + Long.numberOfTrailingZeros(word);
+	}
+
+	/**
+	 * @return première valeur absente de w supérieure ou égale à from, SET_SIZE à
+	 *         défaut
+	 */
+	private static int nextClear(long[] w, int from) {
+		if (from >= SET_SIZE) {
+			return SET_SIZE;
+		}
+		int i = from >>> 6;
+		long word = ~w[i] & (-1L << from);
+		while (word == 0) {
+			if (++i == WORDS) {
+				return SET_SIZE;
+			}
+			word = ~w[i];
+		}
+		return (i << 6) + Long.numberOfTrailingZeros(word);
+	}
+
+	/**
+	 * Donner à this les count premiers octets de runs (intervalles disjoints,
+	 * non contigus et triés) comme contenu, en repassant par la carte de bits si
+	 * la forme RUNS n'est pas la plus compacte.
+	 */
+	private void setRuns(byte[] runs, int count) {
+		int n = 0;
+		for (int r = 0; r < count; r += 2) {
+			n += (runs[r + 1] & 0xFF) - (runs[r] & 0xFF) + 1;
+		}
+		kind = RUNS;
+		size = (short) n;
+		words = null;
+		data = Arrays.copyOf(runs, count);
+		if (count >= Math.min(n, ARRAY_MAX)) {
+			encode(bits());
+		}
+	}
+
+	/**
+	 * Donner à this les count premières valeurs (triées, sans doublon) de values
+	 * comme contenu, sous la forme ARRAY.
+	 */
+	private void setArray(byte[] values, int count) {
+		kind = ARRAY;
+		size = (short) count;
+		words = null;
+		data = count == 0 ? NONE : Arrays.copyOf(values, count);
+	}
+
+	/**
+	 * @return indice de x dans le tableau trié data, ou (-(point d'insertion) -
+	 *         1) s'il est absent
+	 */
+	private int indexOf(int x) {
+		int low = 0;
+		int high = data.length - 1;
+		while (low <= high) {
+			int middle = (low + high) >>> 1;
+			int v = data[middle] & 0xFF;
+			if (v < x) {
+				low = middle + 1;
+			} else if (v > x) {
+				high = middle - 1;
+			} else {
+				return middle;
+			}
+		}
+		return -(low + 1);
+	}
+
+	/**
+	 * @return indice dans data du dernier intervalle commençant avant x (ou en
+	 *         x), -1 à défaut
+	 */
+	private int runIndex(int x) {
+		int low = 0;
+		int high = data.length / 2 - 1;
+		int result = -1;
+		while (low <= high) {
+			int middle = (low + high) >>> 1;
+			if ((data[2 * middle] & 0xFF) <= x) {
+				result = 2 * middle;
+				low = middle + 1;
+			} else {
+				high = middle - 1;
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * @return nombre d'éléments de this
+	 */
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * @param x valeur à tester
+	 * @return true si x appartient à this, false sinon
+	 */
+	public boolean contains(int x) {
+		if (x < 0 || x >= SET_SIZE) {
+			return false;
+		}
+		switch (kind) {
+		case BITMAP:
+			return (words[x >>> 6] & (1L << x)) != 0;
+		case ARRAY:
+			return indexOf(x) >= 0;
+		default:
+			int r = runIndex(x);
+			return r >= 0 && x <= (data[r + 1] & 0xFF);
+		}
+	}
+
+	/**
+	 * @param from valeur de départ
+	 * @return plus petite valeur de this supérieure ou égale à from, -1 à défaut
+	 */
+	public int nextValue(int from) {
+		if (from >= SET_SIZE) {
+			return -1;
+		}
+		int x = Math.max(from, 0);
+		switch (kind) {
+		case BITMAP:
+			return nextSet(words, x);
+		case ARRAY:
+			int i = indexOf(x);
+			if (i < 0) {
+				i = -i - 1;
+			}
+			return i < data.length ? data[i] & 0xFF : -1;
+		default:
+			int r = runIndex(x);
+			if (r >= 0 && x <= (data[r + 1] & 0xFF)) {
+				return x;
+			}
+			r = r < 0 ? 0 : r + 2;
+			return r < data.length ? data[r] & 0xFF : -1;
+		}
+	}
+
+	/**
+	 * @param from valeur de départ
+	 * @return plus grande valeur de this inférieure ou égale à from, -1 à défaut
+	 */
+	public int previousValue(int from) {
+		if (from < 0) {
+			return -1;
+		}
+		int x = Math.min(from, SET_SIZE - 1);
+		switch (kind) {
+		case BITMAP:
+			int w = x >>> 6;
+			long word = words[w] & (-1L >>> (63 - (x & 63)));
+			while (word == 0) {
+				if (--w < 0) {
+					return -1;
+				}
+				word = words[w];
+			}
+			return (w << 6) + 63 - Long.numberOfLeadingZeros(word);
+		case ARRAY:
+			int i = indexOf(x);
+			if (i < 0) {
+				i = -i - 2;
+			}
+			return i >= 0 ? data[i] & 0xFF : -1;
+		default:
+			int r = runIndex(x);
+			return r >= 0 ? Math.min(x, data[r + 1] & 0xFF) : -1;
+		}
+	}
+
+	/**
+	 * @param x valeur de [0, 255]
+	 * @return nombre d'éléments de this inférieurs ou égaux à x
+	 */
+	public int rank(int x) {
+		switch (kind) {
+		case BITMAP:
+			int count = 0;
+			for (int w = 0; w < x >>> 6; ++w) {
+				count += Long.bitCount(words[w]);
+			}
+			return count + Long.bitCount(words[x >>> 6] & (-1L >>> (63 - (x & 63))));
+		case ARRAY:
+			int i = indexOf(x);
+			return i >= 0 ? i + 1 : -i - 1;
+		default:
+			int n = 0;
+			for (int r = 0; r < data.length && (data[r] & 0xFF) <= x; r += 2) {
+				n += Math.min(x, data[r + 1] & 0xFF) - (data[r] & 0xFF) + 1;
+			}
+			return n;
+		}
+	}
+
+	/**
+	 * @param k indice, de 0 à size() - 1
+	 * @return (k + 1)-ième plus petit élément de this
+	 */
+	public int select(int k) {
+		if (k < 0 || k >= size) {
+			throw new IndexOutOfBoundsException(k);
+		}
+		switch (kind) {
+		case BITMAP:
+			int left = k;
+			int w = 0;
+			while (left >= Long.bitCount(words[w])) {
+				left -= Long.bitCount(words[w++]);
+			}
+			long word = words[w];
+			for (; left > 0; --left) {
+				word &= word - 1;
+			}
+			return (w << 6) + Long.numberOfTrailingZeros(word);
+		case ARRAY:
+			return data[k] & 0xFF;
+		default:
+			int r = 0;
+			int remaining = k;
+			while (remaining > (data[r + 1] & 0xFF) - (data[r] & 0xFF)) {
+				remaining -= (data[r + 1] & 0xFF) - (data[r] & 0xFF) + 1;
+				r += 2;
+			}
+			return (data[r] & 0xFF) + remaining;
+		}
+	}
+
+	/**
+	 * Passer à action, dans l'ordre croissant, chaque valeur de this augmentée de
+	 * base (les cases vides des cartes de bits sont sautées mot par mot).
+	 *
+	 * @param base   valeur ajoutée à chaque élément
+	 * @param action action à effectuer
+	 */
+	void forEach(int base, IntConsumer action) {
+		switch (kind) {
+		case BITMAP:
+			for (int i = 0; i < WORDS; ++i) {
+				long word = words[i];
+				while (word != 0) {
+					action.accept(base + (i << 6) + Long.numberOfTrailingZeros(word));
+					word &= word - 1;
+				}
+			}
+			break;
+		case ARRAY:
+			for (byte b : data) {
+				action.accept(base + (b & 0xFF));
+			}
+			break;
+		default:
+			for (int r = 0; r < data.length; r += 2) {
+				for (int v = data[r] & 0xFF; v <= (data[r + 1] & 0xFF); ++v) {
+					action.accept(base + v);
+				}
+			}
+		}
+	}
+
+	/**
+	 * @return true si this est vide, false sinon
+	 */
+	public boolean isEmpty() {
+		return size == 0;
+	}
+
+	/**
+	 * @param x valeur à ajouter (ignorée si hors de [0, 255])
+	 */
+	public void add(int x) {
+		if (x < 0 || x >= SET_SIZE) {
+			return;
+		}
+		if (kind == BITMAP) {
+			long bit = 1L << x;
+			if ((words[x >>> 6] & bit) == 0) {
+				words[x >>> 6] |= bit;
+				++size;
+			}
+		} else if (kind == ARRAY && size + 1 < ARRAY_MAX) {
+			int i = indexOf(x);
+			if (i < 0) {
+				i = -i - 1;
+				byte[] values = new byte[size + 1];
+				System.arraycopy(data, 0, values, 0, i);
+				values[i] = (byte) x;
+				System.arraycopy(data, i, values, i + 1, size - i);
+				data = values;
+				++size;
+			}
+		} else if (!contains(x)) {
+			long[] w = bits();
+			w[x >>> 6] |= 1L << x;
+			encode(w);
+		}
+	}
+
+	/**
+	 * @param x valeur à retirer (ignorée si hors de [0, 255])
+	 */
+	public void remove(int x) {
+		if (!contains(x)) {
+			return;
+		}
+		if (kind == ARRAY) {
+			int i = indexOf(x);
+			byte[] values = size == 1 ? NONE : new byte[size - 1];
+			System.arraycopy(data, 0, values, 0, i);
+			System.arraycopy(data, i + 1, values, i, size - 1 - i);
+			data = values;
+			--size;
+		} else if (kind == BITMAP && size > ARRAY_MAX) {
+			words[x >>> 6] &= ~(1L << x);
+			--size;
+		} else {
+			long[] w = bits();
+			w[x >>> 6] &= ~(1L << x);
+			encode(w);
+		}
+	}
+
+	/**
+	 * Ajouter à this toutes les valeurs de [deb, fin] (bornes ramenées dans [0,
+	 * 255]).
+	 *
+	 * @param deb début de l'intervalle
+	 * @param fin fin de l'intervalle
+	 */
+	public void addInterval(int deb, int fin) {
+		int lo = Math.max(deb, 0);
+		int hi = Math.min(fin, SET_SIZE - 1);
+		if (lo <= hi) {
+			long[] w = bits();
+			for (int i = lo >>> 6; i <= hi >>> 6; ++i) {
+				w[i] |= intervalMask(i, lo, hi);
+			}
+			encode(w);
+		}
+	}
+
+	/**
+	 * Retirer de this toutes les valeurs de [deb, fin] (bornes ramenées dans [0,
+	 * 255]).
+	 *
+	 * @param deb début de l'intervalle
+	 * @param fin fin de l'intervalle
+	 */
+	public void removeInterval(int deb, int fin) {
+		int lo = Math.max(deb, 0);
+		int hi = Math.min(fin, SET_SIZE - 1);
+		if (lo <= hi && size > 0) {
+			long[] w = bits();
+			for (int i = lo >>> 6; i <= hi >>> 6; ++i) {
+				w[i] &= ~intervalMask(i, lo, hi);
+			}
+			encode(w);
+		}
+	}
+
+	/**
+	 * @param deb début de l'intervalle
+	 * @param fin fin de l'intervalle
+	 * @return true si toutes les valeurs de [deb, fin] (bornes ramenées dans [0,
+	 *         255]) appartiennent à this, false sinon
+	 */
+	public boolean containsInterval(int deb, int fin) {
+		int lo = Math.max(deb, 0);
+		int hi = Math.min(fin, SET_SIZE - 1);
+		if (lo > hi) {
+			return true;
+		}
+		switch (kind) {
+		case ARRAY:
+			int i = indexOf(lo);
+			return i >= 0 && i + hi - lo < size && (data[i + hi - lo] & 0xFF) == hi;
+		case RUNS:
+			int r = runIndex(lo);
+			return r >= 0 && (data[r + 1] & 0xFF) >= hi;
+		default:
+			for (int w = lo >>> 6; w <= hi >>> 6; ++w) {
+				long mask = intervalMask(w, lo, hi);
+				if ((words[w] & mask) != mask) {
+					return false;
+				}
+			}
+			return true;
+		}
+	}
+
+	/**
+	 * @return masque des bits du mot w compris dans [lo, hi]
+	 */
+	private static long intervalMask(int w, int lo, int hi) {
+		int first = w << 6;
+		int last = first + 63;
+		if (hi < first || lo > last) {
+			return 0L;
+		}
+		long mask = -1L;
+		if (lo > first) {
+			mask &= -1L << (lo - first);
+		}
+		if (hi < last) {
+			mask &= -1L >>> (last - hi);
+		}
+		return mask;
+	}
+
+	/**
+	 * This devient l'union de this et set2.
+	 *
+	 * @param set2 deuxième ensemble
+	 */
+	public void union(SmallBitmap set2) {
+		if (set2.size == 0 || this == set2) {
+			return;
+		}
+		if (kind == ARRAY && set2.kind == ARRAY && size + set2.size < ARRAY_MAX) {
+			byte[] values = new byte[size + set2.size];
+			int i = 0;
+			int j = 0;
+			int k = 0;
+			while (i < size || j < set2.size) {
+				int a = i < size ? data[i] & 0xFF : SET_SIZE;
+				int b = j < set2.size ? set2.data[j] & 0xFF : SET_SIZE;
+				values[k++] = (byte) Math.min(a, b);
+				if (a <= b) {
+					++i;
+				}
+				if (b <= a) {
+					++j;
+				}
+			}
+			setArray(values, k);
+		} else if (kind == RUNS && set2.kind == RUNS) {
+			byte[] runs = new byte[data.length + set2.data.length];
+			int i = 0;
+			int j = 0;
+			int k = 0;
+			while (i < data.length || j < set2.data.length) {
+				byte[] from;
+				int r;
+				if (j == set2.data.length || (i < data.length && (data[i] & 0xFF) <= (set2.data[j] & 0xFF))) {
+					from = data;
+					r = i;
+					i += 2;
+				} else {
+					from = set2.data;
+					r = j;
+					j += 2;
+				}
+				int lo = from[r] & 0xFF;
+				int hi = from[r + 1] & 0xFF;
+				if (k > 0 && lo <= (runs[k - 1] & 0xFF) + 1) {
+					runs[k - 1] = (byte) Math.max(runs[k - 1] & 0xFF, hi);
+				} else {
+					runs[k++] = (byte) lo;
+					runs[k++] = (byte) hi;
+				}
+			}
+			setRuns(runs, k);
+		} else {
+			long[] w = bits();
+			set2.applyTo(w, 0, OR);
+			encode(w);
+		}
+	}
+
+	/**
+	 * This devient l'union de this et de la carte de quatre mots rangée dans
+	 * bits à partir de offset.
+	 *
+	 * @param bits   tableau de mots
+	 * @param offset indice du premier mot
+	 */
+	void union(long[] bits, int offset) {
+		long[] w = bits();
+		for (int i = 0; i < WORDS; ++i) {
+			w[i] |= bits[offset + i];
+		}
+		encode(w);
+	}
+
+	/**
+	 * This devient la différence de this et de la carte de quatre mots rangée
+	 * dans bits à partir de offset.
+	 *
+	 * @param bits   tableau de mots
+	 * @param offset indice du premier mot
+	 */
+	void difference(long[] bits, int offset) {
+		long[] w = bits();
+		for (int i = 0; i < WORDS; ++i) {
+			w[i] &= ~bits[offset + i];
+		}
+		encode(w);
+	}
+
+	/**
+	 * This devient l'intersection de this et set2.
+	 *
+	 * @param set2 deuxième ensemble
+	 */
+	public void intersection(SmallBitmap set2) {
+		if (this == set2) {
+			return;
+		}
+		if (kind == ARRAY) {
+			filter(set2, true);
+		} else if (set2.kind == ARRAY) {
+			byte[] values = new byte[set2.size];
+			int k = 0;
+			for (byte b : set2.data) {
+				if (contains(b & 0xFF)) {
+					values[k++] = b;
+				}
+			}
+			setArray(values, k);
+		} else if (kind == RUNS && set2.kind == RUNS) {
+			byte[] runs = new byte[data.length + set2.data.length];
+			int i = 0;
+			int j = 0;
+			int k = 0;
+			while (i < data.length && j < set2.data.length) {
+				int lo = Math.max(data[i] & 0xFF, set2.data[j] & 0xFF);
+				int end1 = data[i + 1] & 0xFF;
+				int end2 = set2.data[j + 1] & 0xFF;
+				int hi = Math.min(end1, end2);
+				if (lo <= hi) {
+					runs[k++] = (byte) lo;
+					runs[k++] = (byte) hi;
+				}
+				if (end1 <= end2) {
+					i += 2;
+				}
+				if (end2 <= end1) {
+					j += 2;
+				}
+			}
+			setRuns(runs, k);
+		} else {
+			long[] w = bits();
+			long[] other = set2.bits();
+			for (int i = 0; i < WORDS; ++i) {
+				w[i] &= other[i];
+			}
+			encode(w);
+		}
+	}
+
+	/**
+	 * Ne garder du tableau trié de this que les valeurs qui appartiennent (keep
+	 * vrai) ou n'appartiennent pas (keep faux) à set2.
+	 */
+	private void filter(SmallBitmap set2, boolean keep) {
+		byte[] values = new byte[size];
+		int k = 0;
+		for (byte b : data) {
+			if (set2.contains(b & 0xFF) == keep) {
+				values[k++] = b;
+			}
+		}
+		if (k < size) {
+			setArray(values, k);
+		}
+	}
+
+	/**
+	 * This devient la différence de this et set2.
+	 *
+	 * @param set2 deuxième ensemble
+	 */
+	public void difference(SmallBitmap set2) {
+		if (this == set2) {
+			clear();
+		} else if (set2.size > 0 && size > 0) {
+			if (kind == ARRAY) {
+				filter(set2, false);
+			} else {
+				long[] w = bits();
+				set2.applyTo(w, 0, AND_NOT);
+				encode(w);
+			}
+		}
+	}
+
+	/**
+	 * This devient la différence symétrique de this et set2.
+	 *
+	 * @param set2 deuxième ensemble
+	 */
+	public void symmetricDifference(SmallBitmap set2) {
+		if (this == set2) {
+			clear();
+		} else if (set2.size > 0) {
+			long[] w = bits();
+			set2.applyTo(w, 0, XOR);
+			encode(w);
+		}
+	}
+
+	/**
+	 * This devient son complémentaire dans [0, 255].
+	 */
+	public void complement() {
+		long[] w = bits();
+		for (int i = 0; i < WORDS; ++i) {
+			w[i] = ~w[i];
+		}
+		encode(w);
+	}
+
+	/**
+	 * Vider this.
+	 */
+	public void clear() {
+		kind = ARRAY;
+		size = 0;
+		words = null;
+		data = NONE;
+	}
+
+	/**
+	 * @param set2 deuxième ensemble
+	 * @return true si this est inclus dans set2, false sinon
+	 */
+	public boolean isIncludedIn(SmallBitmap set2) {
+		if (size > set2.size) {
+			return false;
+		}
+		if (kind == ARRAY) {
+			for (byte b : data) {
+				if (!set2.contains(b & 0xFF)) {
+					return false;
+				}
+			}
+			return true;
+		}
+		long[] w = bits();
+		long[] other = set2.bits();
+		for (int i = 0; i < WORDS; ++i) {
+			if ((w[i] & ~other[i]) != 0) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Cardinal de l'intersection de this et set2, compté sans construire
+	 * l'intersection ni rien allouer.
+	 *
+	 * @param set2 deuxième ensemble
+	 * @return nombre d'éléments communs à this et set2
+	 */
+	public int intersectionSize(SmallBitmap set2) {
+		if (this == set2) {
+			return size;
+		}
+		if (kind == ARRAY || set2.kind == ARRAY) {
+			SmallBitmap array = kind == ARRAY && (set2.kind != ARRAY || size <= set2.size) ? this : set2;
+			SmallBitmap other = array == this ? set2 : this;
+			int count = 0;
+			for (byte b : array.data) {
+				if (other.contains(b & 0xFF)) {
+					++count;
+				}
+			}
+			return count;
+		}
+		if (kind == BITMAP && set2.kind == BITMAP) {
+			int count = 0;
+			for (int i = 0; i < WORDS; ++i) {
+				count += Long.bitCount(words[i] & set2.words[i]);
+			}
+			return count;
+		}
+		if (kind == RUNS && set2.kind == RUNS) {
+			int count = 0;
+			int i = 0;
+			int j = 0;
+			while (i < data.length && j < set2.data.length) {
+				int end1 = data[i + 1] & 0xFF;
+				int end2 = set2.data[j + 1] & 0xFF;
+				count += Math.max(0, Math.min(end1, end2) - Math.max(data[i] & 0xFF, set2.data[j] & 0xFF) + 1);
+				if (end1 <= end2) {
+					i += 2;
+				}
+				if (end2 <= end1) {
+					j += 2;
+				}
+			}
+			return count;
+		}
+		SmallBitmap runs = kind == RUNS ? this : set2;
+		long[] w = runs == this ? set2.words : words;
+		int count = 0;
+		for (int r = 0; r < runs.data.length; r += 2) {
+			int lo = runs.data[r] & 0xFF;
+			int hi = runs.data[r + 1] & 0xFF;
+			for (int i = lo >>> 6; i <= hi >>> 6; ++i) {
+				count += Long.bitCount(w[i] & intervalMask(i, lo, hi));
+			}
+		}
+		return count;
+	}
+
+	/**
+	 * @return estimation de la place occupée en mémoire par this, tableau
+	 *         compris (en-têtes de 16 octets, tailles arrondies à 8 octets)
+	 */
+	int footprint() {
+		if (words != null) {
+			return 24 + 16 + 8 * words.length;
+		}
+		return data.length == 0 ? 24 : 24 + ((16 + data.length + 7) & ~7);
+	}
+
+	@Override
+	public int hashCode() {
+		final int prime = 31;
+		int result = 1;
+		for (long word : bits()) {
+			result = prime * result + Long.hashCode(word);
+		}
+		return result;
+	}
+
+	@Override
+	public boolean equals(Object obj) {
+		if (this == obj) {
+			return true;
+		}
+		if (!(obj instanceof SmallBitmap)) {
+			return false;
+		}
+		SmallBitmap other = (SmallBitmap) obj;
+		if (size != other.size) {
+			return false;
+		}
+		if (kind == ARRAY && other.kind == ARRAY) {
+			return Arrays.equals(data, other.data);
+		}
+		return Arrays.equals(bits(), other.bits());
+	}
+
+	/**
+	 * @return copie de this
+	 */
+	public SmallBitmap copyOf() {
+		return new SmallBitmap(this);
+	}
+
+	/**
+	 * @return this sous le même format que SmallSet.toString()
+	 */
+	@Override
+	public String toString() {
+		StringBuilder result = new StringBuilder("elements presents : ");
+		for (int i = 0; i < SET_SIZE; ++i) {
+			if (contains(i)) {
+				result.append(i).append(' ');
+			}
+		}
+		return result.toString();
+	}
+}
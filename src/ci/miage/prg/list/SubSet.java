@@ -14,18 +14,32 @@ import ci.miage.prg.list_util.SuperT;
 public class SubSet implements SuperT<SubSet> {
 
 	public final int rank;
-	public final SmallSet set;
+	public final SmallBitmap set;
+	/**
+	 * Vrai si le sous-ensemble peut appartenir à plusieurs MySet : il ne doit
+	 * plus être modifié, l'ensemble qui veut le changer le remplace d'abord par
+	 * une copie (qui, elle, n'est pas partagée).
+	 */
+	boolean shared;
 
 	public SubSet() {
 		rank = 0;
-		set = new SmallSet();
+		set = new SmallBitmap();
 	}
 
-	public SubSet(int rank, SmallSet set) {
+	public SubSet(int rank, SmallBitmap set) {
 		this.rank = rank;
 		this.set = set;
 	}
 
+	/**
+	 * @param rank rang du sous-ensemble
+	 * @param set  petit ensemble converti en carte de bits
+	 */
+	public SubSet(int rank, SmallSet set) {
+		this(rank, new SmallBitmap(set));
+	}
+
 	@Override
 	public SubSet copyOf() {
 		return new SubSet(rank, set.copyOf());
@@ -0,0 +1,57 @@
+package ci.miage.prg.list;
+
+import java.util.NoSuchElementException;
+import java.util.PrimitiveIterator;
+
+import ci.miage.prg.list_util.Iterator;
+
+/**
+ * Parcours des valeurs d'un MySet dans l'ordre croissant, sans allocation par
+ * valeur : la position est un itérateur de la liste des sous-ensembles et la
+ * prochaine valeur dans le sous-ensemble courant.
+ *
+ * @author Yeo François De Sales Gneneman <foursov@univ-rennes.fr>
+ * @author Yapi Yapo <foursov@univ-rennes.fr>
+ * @version 1.0
+ * @since 2026-10-17
+ */
+
+final class ValueIterator implements PrimitiveIterator.OfInt {
+
+	private final Iterator<SubSet> it;
+	/**
+	 * Prochaine valeur (sur 8 bits) du sous-ensemble courant, -1 en fin de
+	 * parcours.
+	 */
+	private int next;
+
+	/**
+	 * @param it itérateur placé sur le premier sous-ensemble à parcourir
+	 */
+	ValueIterator(Iterator<SubSet> it) {
+		this.it = it;
+		next = it.isOnFlag() ? -1 : it.getValue().set.nextValue(0);
+	}
+
+	@Override
+	public boolean hasNext() {
+		return next >= 0;
+	}
+
+	@Override
+	public int nextInt() {
+		if (next < 0) {
+			throw new NoSuchElementException();
+		}
+		SubSet subSet = it.getValue();
+		int value = (subSet.rank << 8) + next;
+		next = subSet.set.nextValue(next + 1);
+		if (next < 0) {
+			it.goForward();
+			if (!it.isOnFlag()) {
+				next = it.getValue().set.nextValue(0);
+			}
+		}
+		return value;
+	}
+}
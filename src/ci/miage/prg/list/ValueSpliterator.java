@@ -0,0 +1,124 @@
+package ci.miage.prg.list;
+
+import java.util.Comparator;
+import java.util.Spliterator;
+import java.util.function.IntConsumer;
+
+/**
+ * Découpage des valeurs d'un MySet pour les flux parallèles. Les
+ * sous-ensembles, rangés dans un tableau par ordre croissant des rangs, sont
+ * partagés entre les morceaux à une frontière de rang : chaque morceau parcourt
+ * ses sous-ensembles entiers, sauf celui qui était en cours au moment du
+ * découpage. Ce sont ceux d'une version figée : l'ensemble d'origine les copie
+ * avant de les modifier, et les valeurs parcourues ne changent donc plus.
+ *
+ * @author Yeo François De Sales Gneneman <foursov@univ-rennes.fr>
+ * @author Yapi Yapo <foursov@univ-rennes.fr>
+ * @version 1.0
+ * @since 2026-10-17
+ */
+
+final class ValueSpliterator implements Spliterator.OfInt {
+
+	private static final int CHARACTERISTICS = ORDERED | DISTINCT | SORTED | NONNULL | IMMUTABLE;
+
+	private final SubSet[] subSets;
+	/**
+	 * Indice du sous-ensemble courant.
+	 */
+	private int index;
+	/**
+	 * Indice (exclu) du dernier sous-ensemble de ce morceau.
+	 */
+	private final int fence;
+	/**
+	 * Prochaine valeur (sur 8 bits) du sous-ensemble courant.
+	 */
+	private int next;
+	private long estimate;
+	/**
+	 * Vrai tant que estimate est le nombre exact de valeurs restantes (jusqu'au
+	 * premier découpage).
+	 */
+	private boolean exact;
+
+	/**
+	 * @param subSets sous-ensembles non vides et partagés, triés par rang
+	 * @param size    nombre total de valeurs
+	 */
+	ValueSpliterator(SubSet[] subSets, long size) {
+		this(subSets, 0, subSets.length, size, true);
+	}
+
+	private ValueSpliterator(SubSet[] subSets, int index, int fence, long estimate, boolean exact) {
+		this.subSets = subSets;
+		this.index = index;
+		this.fence = fence;
+		this.estimate = estimate;
+		this.exact = exact;
+		next = index < fence ? subSets[index].set.nextValue(0) : -1;
+	}
+
+	@Override
+	public boolean tryAdvance(IntConsumer action) {
+		if (index >= fence) {
+			return false;
+		}
+		SubSet subSet = subSets[index];
+		action.accept((subSet.rank << 8) + next);
+		next = subSet.set.nextValue(next + 1);
+		if (next < 0 && ++index < fence) {
+			next = subSets[index].set.nextValue(0);
+		}
+		if (estimate > 0) {
+			--estimate;
+		}
+		return true;
+	}
+
+	@Override
+	public void forEachRemaining(IntConsumer action) {
+		if (index >= fence) {
+			return;
+		}
+		SubSet subSet = subSets[index];
+		for (int v = next; v >= 0; v = subSet.set.nextValue(v + 1)) {
+			action.accept((subSet.rank << 8) + v);
+		}
+		for (int i = index + 1; i < fence; ++i) {
+			subSets[i].set.forEach(subSets[i].rank << 8, action);
+		}
+		index = fence;
+		estimate = 0;
+	}
+
+	@Override
+	public Spliterator.OfInt trySplit() {
+		int middle = (index + fence) >>> 1;
+		if (middle <= index) {
+			return null;
+		}
+		ValueSpliterator prefix = new ValueSpliterator(subSets, index, middle, estimate >>> 1, false);
+		prefix.next = next;
+		index = middle;
+		next = subSets[index].set.nextValue(0);
+		estimate -= prefix.estimate;
+		exact = false;
+		return prefix;
+	}
+
+	@Override
+	public long estimateSize() {
+		return estimate;
+	}
+
+	@Override
+	public int characteristics() {
+		return exact ? CHARACTERISTICS | SIZED : CHARACTERISTICS;
+	}
+
+	@Override
+	public Comparator<? super Integer> getComparator() {
+		return null;
+	}
+}
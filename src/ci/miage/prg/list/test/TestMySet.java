@@ -1,15 +1,45 @@
 package ci.miage.prg.list.test;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileNotFoundException;
+import java.io.IOException;
 import java.io.InputStream;
+import java.io.PrintStream;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.PrimitiveIterator;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.Stream;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import javax.management.openmbean.CompositeData;
+import javax.management.openmbean.TabularData;
 
 import org.junit.Test;
 import org.junit.Rule;
 import org.junit.rules.Timeout;
 
+import ci.miage.prg.list.ConcurrentMySet;
+import ci.miage.prg.list.DurableMySet;
+import ci.miage.prg.list.JmxMetricsSink;
+import ci.miage.prg.list.Metrics;
+import ci.miage.prg.list.MetricsSink;
 import ci.miage.prg.list.MySet;
+import ci.miage.prg.list.MySetCache;
+import ci.miage.prg.list.MySetDelta;
+import ci.miage.prg.list.MySetExpression;
+import ci.miage.prg.list.MySetSnapshot;
+import ci.miage.prg.list.SmallBitmap;
 import ci.miage.prg.list.SubSet;
 import ci.miage.prg.list_util.Iterator;
 import ci.miage.prg.list_util.OperationCounter;
@@ -67,7 +97,7 @@ public class TestMySet {
 		return s1.rank == s2.rank && compareSmallSets(s1.set, s2.set);
 	}
 
-	public static boolean compareSmallSets(SmallSet s1, SmallSet s2) {
+	public static boolean compareSmallSets(SmallBitmap s1, SmallBitmap s2) {
 		return !(s1.size() == 0 || s2.size() == 0) && s1.toString().equals(s2.toString());
 	}
 
@@ -171,6 +201,128 @@ public class TestMySet {
 		assertTrue("set creation in disorder", compareMySets(mySet1, mySet2));
 	}
 
+	@Test
+	public void testSetCreation2() {
+		MySet mySet1 = new MySet();
+		mySet1.addAllFromStream(new ByteArrayInputStream("  300\t100\r\n40000 100 5000".getBytes()));
+		MySet mySet2 = new MySet();
+		mySet2.addNumber(100);
+		mySet2.addNumber(300);
+		mySet2.addNumber(5000);
+		mySet2.addNumber(40000);
+		assertTrue("set creation without -1", compareMySets(mySet1, mySet2));
+	}
+
+	@Test
+	public void testWideValues() throws IOException {
+		int[] values = { Integer.MIN_VALUE, -70000, -256, -5, 0, 40000, 1 << 20, 300 * 65536 + 7,
+				Integer.MAX_VALUE };
+		MySet mySet = new MySet();
+		for (int i = values.length - 1; i >= 0; --i) {
+			mySet.addNumber(values[i]);
+		}
+		boolean contained = true;
+		for (int value : values) {
+			contained = contained && mySet.containsValue(value);
+		}
+		assertTrue("wide values contained", contained && mySet.size() == values.length);
+		assertTrue("wide values absent", !mySet.containsValue(-1) && !mySet.containsValue(40001)
+				&& !mySet.containsValue(Integer.MAX_VALUE - 1));
+		assertTrue("wide values ordered", Arrays.equals(values,
+				Arrays.stream(mySet.toString().trim().split("\\s+")).mapToInt(Integer::parseInt).toArray()));
+		Path file = Files.createTempFile("test-wide", ".ens");
+		try {
+			mySet.save(file);
+			MySet restored = new MySet();
+			restored.restore(file);
+			assertTrue("wide values text", compareMySets(mySet, restored));
+			mySet.saveBinary(file);
+			restored.restore(file);
+			assertTrue("wide values binary", compareMySets(mySet, restored));
+		} finally {
+			Files.delete(file);
+		}
+		mySet.removeNumber(Integer.MIN_VALUE);
+		mySet.removeNumber(300 * 65536 + 7);
+		assertTrue("wide values removed", mySet.size() == values.length - 2
+				&& !mySet.containsValue(Integer.MIN_VALUE) && mySet.containsValue(Integer.MAX_VALUE));
+	}
+
+	@Test
+	public void testEndMarkerRefused() throws IOException {
+		MySet mySet = readFileToMySet(ENS1);
+		mySet.addNumber(-1);
+		Path file = Files.createTempFile("test-end", ".ens");
+		try {
+			Files.write(file, new byte[] { '7', ' ', '-', '1' });
+			boolean refused = false;
+			try {
+				mySet.save(file);
+			} catch (IOException e) {
+				refused = true;
+			}
+			assertTrue("save refused", refused && Files.size(file) == 4);
+			mySet.saveBinary(file);
+			MySet restored = new MySet();
+			restored.restore(file);
+			assertTrue("binary keeps -1", compareMySets(mySet, restored));
+		} finally {
+			Files.delete(file);
+		}
+	}
+
+	/**
+	 * @return contenu de set au format d'affichage d'origine, pour des valeurs
+	 *         de 0 à 32767 (chaque valeur complétée par des espaces sur 6
+	 *         caractères, 10 par ligne), construit valeur par valeur
+	 */
+	private static String legacyFormat(MySet set) {
+		StringBuilder result = new StringBuilder();
+		int count = 0;
+		for (int value : set.stream().toArray()) {
+			StringBuilder number = new StringBuilder(String.valueOf(value));
+			while (number.length() < 6) {
+				number.append(' ');
+			}
+			result.append(number);
+			if (++count == 10) {
+				result.append('\n');
+				count = 0;
+			}
+		}
+		if (count > 0) {
+			result.append('\n');
+		}
+		return result.toString();
+	}
+
+	@Test
+	public void testPrintFormat() {
+		MySet mySet = readFileToMySet(ENS1);
+		mySet.addRange(0, 20);
+		mySet.addRange(32700, 32767);
+		String expected = legacyFormat(mySet);
+		PrintStream out = System.out;
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		System.setOut(new PrintStream(bytes, true));
+		try {
+			mySet.print();
+		} finally {
+			System.setOut(out);
+		}
+		byte[] legacy = (" [version corrigee de contenu]" + System.lineSeparator() + expected)
+				.getBytes(StandardCharsets.US_ASCII);
+		assertTrue("print bytes", Arrays.equals(bytes.toByteArray(), legacy));
+		assertTrue("toString", mySet.toString().equals(expected));
+		assertTrue("empty", new MySet().toString().isEmpty());
+		MySet wide = new MySet();
+		wide.addRange(0, 8);
+		wide.addNumber(-12345);
+		wide.addNumber(123456);
+		assertTrue("wide values separated", wide.toString().equals(
+				"-12345 0     1     2     3     4     5     6     7     8     \n123456 \n"));
+	}
+
 	@Test
 	public void testContainment1() {
 		MySet mySet = readFileToMySet(ENS0);
@@ -190,6 +342,22 @@ public class TestMySet {
 		assertConstness("appartenance 2", mySet, ENS0);
 	}
 
+	@Test
+	public void testContainment3() {
+		MySet mySet1 = new MySet();
+		mySet1.addNumber(100);
+		mySet1.addNumber(300);
+		mySet1.iterator().remove();
+		assertTrue("appartenance apres retrait par iterateur", !mySet1.containsValue(100) && mySet1.containsValue(300));
+		mySet1.addNumber(5000);
+		mySet1.addNumber(100);
+		MySet mySet2 = new MySet();
+		mySet2.addNumber(100);
+		mySet2.addNumber(300);
+		mySet2.addNumber(5000);
+		assertTrue("ajout apres retrait par iterateur", compareMySets(mySet1, mySet2));
+	}
+
 	@Test
 	public void testSetAddition() throws FileNotFoundException {
 		MySet mySet1 = readFileToMySet(ENS0);
@@ -295,6 +463,69 @@ public class TestMySet {
 		assertTrue("size", size == 23);
 	}
 
+	@Test
+	public void testSizeTracking() {
+		MySet mySet = readFileToMySet(ENS1);
+		MySet other = readFileToMySet(TEST_U01);
+		String[] steps = { "add", "add again", "remove", "remove absent", "add range", "remove range",
+				"add stream", "remove stream", "union", "intersection", "difference", "symmetric difference",
+				"self symmetric difference", "union after clear", "apply delta", "clear" };
+		for (int step = 0; step < steps.length; ++step) {
+			switch (step) {
+			case 0:
+			case 1:
+				mySet.addNumber(70000);
+				break;
+			case 2:
+			case 3:
+				mySet.removeNumber(70000);
+				break;
+			case 4:
+				mySet.addRange(-1000, 1000);
+				break;
+			case 5:
+				mySet.removeRange(-500, 20000);
+				break;
+			case 6:
+				mySet.addAllFromStream(new ByteArrayInputStream("5 6 7 -40000 6 -1".getBytes()));
+				break;
+			case 7:
+				mySet.removeAllFromStream(new ByteArrayInputStream("6 -900 123 -1".getBytes()));
+				break;
+			case 8:
+				mySet.union(other);
+				break;
+			case 9:
+				mySet.intersection(readFileToMySet(ENS1).or(other));
+				break;
+			case 10:
+				mySet.difference(readFileToMySet(ENS0));
+				break;
+			case 11:
+				mySet.symmetricDifference(other);
+				break;
+			case 12:
+				mySet.symmetricDifference(mySet);
+				break;
+			case 13:
+				mySet.union(other);
+				break;
+			case 14:
+				mySet.startTracking();
+				MySet replica = readFileToMySet(TEST_U01);
+				mySet.addRange(100, 900);
+				mySet.removeNumber(other.first());
+				replica.applyDelta(mySet.delta());
+				mySet = replica;
+				break;
+			default:
+				mySet.clear();
+			}
+			assertTrue("size after " + steps[step], mySet.size() == mySet.stream().count()
+					&& mySet.longSize() == mySet.size());
+		}
+	}
+
 	@Test
 	public void testDifference1() {
 		MySet mySet1 = readFileToMySet(ENS0);
@@ -790,6 +1021,19 @@ public class TestMySet {
 		assertTrue("equality 0+1000 == 0+256", !mySet1.equals(mySet2));
 	}
 
+	@Test
+	public void testHashCode() {
+		MySet mySet1 = readFileToMySet(ENS0);
+		MySet mySet2 = readFileToMySet("test-desordre.ens");
+		HashSet<MySet> hashSet = new HashSet<>();
+		hashSet.add(mySet1);
+		assertTrue("hashCode f0", mySet1.hashCode() == mySet2.hashCode() && hashSet.contains(mySet2));
+		mySet2.addNumber(8888);
+		assertTrue("hashCode f0 + 8888", !hashSet.contains(mySet2));
+		mySet2.removeNumber(8888);
+		assertTrue("hashCode f0 + 8888 - 8888", hashSet.contains(mySet2));
+	}
+
 	@Test
 	public void testInclusion1() {
 		MySet mySet1 = readFileToMySet(ENS0);
@@ -976,6 +1220,816 @@ public class TestMySet {
 		assertConstness("inclusion: this", mySet1, ENS0);
 	}
 
+	@Test
+	public void testSaveRestore() throws IOException {
+		MySet mySet1 = new MySet();
+		mySet1.restore(Path.of(TEST_U01));
+		Path file = Files.createTempFile("test-save", ".ens");
+		try {
+			mySet1.save(file);
+			assertTrue("save format", Arrays.equals(Files.readAllBytes(file), Files.readAllBytes(Path.of(TEST_U01))));
+			MySet mySet2 = readFileToMySet(ENS0);
+			mySet2.restore(file);
+			assertTrue("restore", compareMySets(mySet2, readFileToMySet(TEST_U01)));
+		} finally {
+			Files.delete(file);
+		}
+	}
+
+	@Test
+	public void testSaveRestoreBinary() throws IOException {
+		Path file = Files.createTempFile("test-save", ".bin");
+		try {
+			MySet.convertToBinary(Path.of(TEST_U01), file);
+			assertTrue("binary size", Files.size(file) == 16 + 8 * (4 + 32));
+			MySet mySet = new MySet();
+			mySet.restore(file);
+			assertTrue("binary restore", compareMySets(mySet, readFileToMySet(TEST_U01)));
+			SubSet subSet = MySet.readSubSet(file, 6);
+			assertTrue("binary rank 6", subSet.rank == 6 && subSet.set.contains(4) && subSet.set.size() == 3);
+			assertTrue("binary absent rank", MySet.readSubSet(file, 5) == null);
+		} finally {
+			Files.delete(file);
+		}
+	}
+
+	@Test
+	public void testExternalRemovalBeforeAlgebra() {
+		MySet mySet1 = readFileToMySet(ENS1);
+		MySet mySet2 = readFileToMySet(TEST_U01);
+		int rank1 = removeFirst(mySet1);
+		mySet1.union(mySet2);
+		MySet expected = readFileToMySet(ENS1);
+		expected.removeRange(rank1 << 8, (rank1 << 8) + 255);
+		expected.union(mySet2);
+		assertTrue("union after removal", compareMySets(mySet1, expected) && mySet1.size() == expected.size());
+		mySet1 = readFileToMySet(ENS1);
+		removeFirst(mySet1);
+		int rank2 = removeFirst(mySet2);
+		mySet1.intersection(mySet2);
+		expected = readFileToMySet(ENS1);
+		expected.removeRange(rank1 << 8, (rank1 << 8) + 255);
+		MySet expected2 = readFileToMySet(TEST_U01);
+		expected2.removeRange(rank2 << 8, (rank2 << 8) + 255);
+		expected.intersection(expected2);
+		boolean contained = true;
+		for (int value = 0; value < 70000; ++value) {
+			contained = contained && mySet1.containsValue(value) == expected.containsValue(value);
+		}
+		assertTrue("intersection after removal",
+				compareMySets(mySet1, expected) && mySet1.size() == expected.size() && contained);
+	}
+
+	/**
+	 * Retirer le premier sous-ensemble de set par un itérateur de la liste
+	 * (modification extérieure à MySet).
+	 *
+	 * @return rang du sous-ensemble retiré
+	 */
+	private static int removeFirst(MySet set) {
+		Iterator<SubSet> it = set.iterator();
+		int rank = it.getValue().rank;
+		it.remove();
+		return rank;
+	}
+
+	@Test
+	public void testRanges() {
+		MySet mySet1 = new MySet();
+		MySet mySet2 = new MySet();
+		mySet1.addNumber(5000);
+		mySet2.addNumber(5000);
+		mySet1.addRange(-300, 1000);
+		for (int i = -300; i <= 1000; ++i) {
+			mySet2.addNumber(i);
+		}
+		assertTrue("addRange", compareMySets(mySet1, mySet2) && mySet1.size() == 1302);
+		assertTrue("containsRange", mySet1.containsRange(-300, 1000) && mySet1.containsRange(0, 255)
+				&& !mySet1.containsRange(-301, 1000) && !mySet1.containsRange(900, 5000)
+				&& mySet1.containsRange(5000, 5000) && mySet1.containsRange(10, 9));
+		mySet1.removeRange(-10, 700);
+		for (int i = -10; i <= 700; ++i) {
+			mySet2.removeNumber(i);
+		}
+		assertTrue("removeRange", compareMySets(mySet1, mySet2) && mySet1.size() == 591
+				&& !mySet1.containsValue(0) && mySet1.containsValue(-11) && mySet1.containsValue(701));
+		mySet1.removeRange(Integer.MIN_VALUE, Integer.MAX_VALUE);
+		assertTrue("removeRange all", mySet1.size() == 0 && mySet1.isEmpty());
+	}
+
+	@Test
+	public void testRemoveRangeWithoutValues() {
+		MySet set = new MySet();
+		set.addRange(0, 10);
+		set.addRange(100, 600);
+		set.snapshot();
+		long version = set.version();
+		JmxMetricsSink sink = new JmxMetricsSink();
+		Metrics.enable(sink);
+		try {
+			set.removeRange(20, 90);
+			set.removeRange(1000, 2000);
+		} finally {
+			Metrics.disable();
+		}
+		assertTrue("nothing removed", set.version() == version && set.size() == 512
+				&& sink.counter(MetricsSink.Counter.SUBSET_ALLOCATIONS) == 0);
+		set.removeRange(5, 150);
+		assertTrue("removed", set.version() != version && set.size() == 455 && set.containsValue(4)
+				&& !set.containsValue(150) && set.containsValue(151));
+	}
+
+	@Test
+	public void testParallelAlgebra() {
+		Random random = new Random(2023);
+		MySet mySet1 = new MySet();
+		MySet mySet2 = new MySet();
+		for (int value = 0; value < 1 << 20; value += 1 + random.nextInt(400)) {
+			mySet1.addNumber(value);
+		}
+		for (int value = 0; value < 1 << 20; value += 1 + random.nextInt(400)) {
+			mySet2.addNumber(value);
+		}
+		mySet2.addRange(0, 1 << 18);
+		ForkJoinPool pool = new ForkJoinPool(4);
+		try {
+			for (int op = 0; op < 4; ++op) {
+				MySet sequential = new MySet();
+				sequential.union(mySet1);
+				MySet parallel = new MySet();
+				parallel.union(mySet1);
+				MySet operand = new MySet();
+				operand.union(mySet2);
+				if (op == 0) {
+					sequential.union(mySet2);
+					parallel.unionParallel(operand, pool);
+				} else if (op == 1) {
+					sequential.intersection(mySet2);
+					parallel.intersectionParallel(operand, pool);
+				} else if (op == 2) {
+					sequential.difference(mySet2);
+					parallel.differenceParallel(operand, pool);
+				} else {
+					sequential.symmetricDifference(mySet2);
+					parallel.symmetricDifferenceParallel(operand, pool);
+				}
+				assertTrue("parallel algebra " + op, compareMySets(sequential, parallel)
+						&& parallel.size() == sequential.size() && compareMySets(operand, mySet2));
+			}
+			MySet full = new MySet();
+			full.addRange(0, (1 << 20) - 1);
+			SubSet first = full.iterator().getValue();
+			JmxMetricsSink sink = new JmxMetricsSink();
+			Metrics.enable(sink);
+			try {
+				full.differenceParallel(mySet1, pool);
+			} finally {
+				Metrics.disable();
+			}
+			assertTrue("parallel results in new subsets", first.set.size() == SmallBitmap.SET_SIZE
+					&& sink.counter(MetricsSink.Counter.SUBSET_ALLOCATIONS) == mySet1.stream().map(v -> v >> 8).distinct().count()
+					&& full.size() == (1 << 20) - mySet1.size());
+		} finally {
+			pool.shutdown();
+		}
+	}
+
+	@Test
+	public void testUnionAllIntersectAll() {
+		java.util.List<MySet> sets = new java.util.ArrayList<>();
+		MySet union = new MySet();
+		MySet intersection = new MySet();
+		intersection.addRange(0, 40000);
+		for (String file : new String[] { ENS0, ENS1, ENS3, TEST_U01, TEST_D01, TEST_S01 }) {
+			MySet mySet = readFileToMySet(file);
+			sets.add(mySet);
+			union.union(mySet);
+			intersection.intersection(mySet);
+		}
+		sets.add(readFileToMySet(ENS1));
+		assertTrue("unionAll", compareMySets(MySet.unionAll(sets), union));
+		assertTrue("intersectAll", compareMySets(MySet.intersectAll(sets), intersection));
+		for (int i = 0; i < sets.size(); ++i) {
+			assertTrue("unionAll is const", sets.get(i).size() == readFileToMySet(
+					new String[] { ENS0, ENS1, ENS3, TEST_U01, TEST_D01, TEST_S01, ENS1 }[i]).size());
+		}
+		MySet wide = new MySet();
+		wide.addRange(0, 1000);
+		wide.addNumber(1000000);
+		MySet narrow = new MySet();
+		narrow.addNumber(5);
+		narrow.addNumber(1000000);
+		narrow.addNumber(2000000);
+		MySet expected = new MySet();
+		expected.addNumber(5);
+		expected.addNumber(1000000);
+		assertTrue("intersectAll past the last rank", compareMySets(
+				MySet.intersectAll(java.util.Arrays.asList(wide, narrow)), expected));
+		sets.add(new MySet());
+		assertTrue("intersectAll with empty", MySet.intersectAll(sets).isEmpty());
+		assertTrue("empty collections", MySet.unionAll(new HashSet<>()).isEmpty()
+				&& MySet.intersectAll(new HashSet<>()).isEmpty());
+	}
+
+	@Test
+	public void testPureAlgebra() {
+		String[][] pairs = { { ENS0, ENS1 }, { ENS1, ENS3 }, { TEST_U01, TEST_D01 }, { ENS1, ENS1 } };
+		for (String[] pair : pairs) {
+			MySet set1 = readFileToMySet(pair[0]);
+			MySet set2 = readFileToMySet(pair[1]);
+			MySet[] results = { set1.or(set2), set1.and(set2), set1.andNot(set2), set1.xor(set2) };
+			MySet[] expecteds = new MySet[results.length];
+			for (int op = 0; op < results.length; ++op) {
+				MySet expected = readFileToMySet(pair[0]);
+				expecteds[op] = expected;
+				switch (op) {
+				case 0:
+					expected.union(set2);
+					break;
+				case 1:
+					expected.intersection(set2);
+					break;
+				case 2:
+					expected.difference(set2);
+					break;
+				default:
+					expected.symmetricDifference(set2);
+				}
+				assertTrue("pure op " + op, compareMySets(results[op], expected)
+						&& results[op].size() == expected.size());
+			}
+			// les modifications du résultat et des opérandes restent séparées
+			results[0].addRange(-1000, 40000);
+			results[2].removeRange(0, 1 << 16);
+			set2.addRange(0, 300);
+			assertTrue("or/andNot const", compareMySets(set1, readFileToMySet(pair[0])));
+			set1.removeRange(0, 1 << 16);
+			assertTrue("results const", compareMySets(results[1], expecteds[1])
+					&& compareMySets(results[3], expecteds[3]));
+		}
+		MySet set = readFileToMySet(ENS1);
+		MySet union = set.or(set);
+		union.addNumber(40000);
+		assertTrue("or self", compareMySets(set, readFileToMySet(ENS1)) && union.containsValue(40000));
+		assertTrue("xor self", set.xor(set).isEmpty() && set.andNot(set).isEmpty());
+	}
+
+	@Test
+	public void testCardinalityOnly() {
+		String[] files = { ENS0, ENS1, ENS3, TEST_U01, TEST_D01, TEST_S01 };
+		for (String file1 : files) {
+			for (String file2 : files) {
+				MySet set1 = readFileToMySet(file1);
+				MySet set2 = readFileToMySet(file2);
+				String pair = file1 + " " + file2;
+				assertTrue("intersectionSize " + pair, set1.intersectionSize(set2) == set1.and(set2).size());
+				assertTrue("unionSize " + pair, set1.unionSize(set2) == set1.or(set2).size());
+				assertTrue("differenceSize " + pair, set1.differenceSize(set2) == set1.andNot(set2).size());
+				assertTrue("symmetricDifferenceSize " + pair,
+						set1.symmetricDifferenceSize(set2) == set1.xor(set2).size());
+				assertTrue("intersects " + pair, set1.intersects(set2) == !set1.and(set2).isEmpty());
+				assertTrue("const " + pair, compareMySets(set1, readFileToMySet(file1))
+						&& compareMySets(set2, readFileToMySet(file2)));
+			}
+		}
+		MySet full = new MySet();
+		full.addRange(0, 9999);
+		MySet runs = new MySet();
+		for (int i = 0; i < 10000; i += 100) {
+			runs.addRange(i, i + 39);
+		}
+		assertTrue("runs and bitmaps", full.intersectionSize(runs) == 4000 && runs.intersectionSize(runs) == 4000
+				&& runs.intersects(full) && !runs.intersects(new MySet()));
+	}
+
+	@Test
+	public void testConcurrentMySet() throws InterruptedException {
+		ConcurrentMySet set = new ConcurrentMySet(4);
+		Thread[] writers = new Thread[4];
+		for (int t = 0; t < writers.length; ++t) {
+			int first = t;
+			writers[t] = new Thread(() -> {
+				for (int value = first; value < 40000; value += writers.length) {
+					set.addNumber(value);
+				}
+				for (int value = first; value < 40000; value += 2 * writers.length) {
+					set.removeNumber(value);
+				}
+			});
+			writers[t].start();
+		}
+		for (Thread writer : writers) {
+			writer.join();
+		}
+		MySet expected = new MySet();
+		for (int value = 0; value < 40000; ++value) {
+			if (value % 8 >= 4) {
+				expected.addNumber(value);
+			}
+		}
+		assertTrue("concurrent writes", set.size() == expected.size() && compareMySets(set.snapshot(), expected)
+				&& set.containsValue(4) && !set.containsValue(3));
+		MySet snapshot = set.snapshot();
+		MySet ens1 = readFileToMySet(ENS1);
+		set.intersection(ens1);
+		expected.intersection(ens1);
+		assertTrue("intersection", set.size() == expected.size() && compareMySets(set.snapshot(), expected));
+		set.union(new ConcurrentMySet(readFileToMySet(ENS0)));
+		expected.union(readFileToMySet(ENS0));
+		assertTrue("union", set.size() == expected.size() && compareMySets(set.snapshot(), expected));
+		set.symmetricDifference(ens1);
+		expected.symmetricDifference(ens1);
+		set.difference(readFileToMySet(ENS3));
+		expected.difference(readFileToMySet(ENS3));
+		assertTrue("difference", set.size() == expected.size() && compareMySets(set.snapshot(), expected));
+		assertTrue("snapshot unchanged", snapshot.size() == 20000 && snapshot.containsValue(39999));
+		snapshot.addNumber(3);
+		assertTrue("snapshot is private", !set.containsValue(3) && compareMySets(ens1, readFileToMySet(ENS1)));
+		int value = ens1.first();
+		ConcurrentMySet copy = new ConcurrentMySet(ens1);
+		ens1.removeNumber(value);
+		copy.addNumber(value + 1);
+		assertTrue("copy constructor shares", copy.containsValue(value) && !ens1.containsValue(value + 1)
+				&& copy.size() == ens1.size() + 2);
+	}
+
+	@Test
+	public void testSnapshot() throws InterruptedException {
+		MySet set = readFileToMySet(ENS1);
+		MySetSnapshot snapshot = set.snapshot();
+		assertTrue("same version", set.snapshot() == snapshot && snapshot.size() == set.size());
+		Thread[] readers = new Thread[3];
+		boolean[] failed = new boolean[readers.length];
+		for (int t = 0; t < readers.length; ++t) {
+			int index = t;
+			readers[t] = new Thread(() -> {
+				MySet reference = readFileToMySet(ENS1);
+				for (int value = -10; value < 40000; ++value) {
+					failed[index] |= snapshot.containsValue(value) != reference.containsValue(value);
+				}
+			});
+			readers[t].start();
+		}
+		set.addRange(0, 40000);
+		set.removeRange(100, 20000);
+		for (Thread reader : readers) {
+			reader.join();
+		}
+		for (boolean f : failed) {
+			assertTrue("concurrent reads", !f);
+		}
+		assertTrue("snapshot unchanged", compareMySets(snapshot.toMySet(), readFileToMySet(ENS1)));
+		MySetSnapshot snapshot2 = set.snapshot();
+		assertTrue("new version", snapshot2 != snapshot && snapshot2.size() == set.size()
+				&& snapshot2.containsValue(40000) && !snapshot2.containsValue(150));
+		MySet copy = snapshot2.toMySet();
+		copy.removeNumber(40000);
+		assertTrue("toMySet is private", snapshot2.containsValue(40000) && set.containsValue(40000));
+		assertTrue("empty", new MySet().snapshot().isEmpty());
+	}
+
+	@Test
+	public void testValueIteration() {
+		MySet set = readFileToMySet(ENS1);
+		set.addRange(-70000, -60000);
+		set.addNumber(Integer.MIN_VALUE);
+		set.addNumber(Integer.MAX_VALUE);
+		for (int value = 50000; value < 52000; value += 7) {
+			set.addNumber(value);
+		}
+		int[] expected = new int[set.size()];
+		int n = 0;
+		PrimitiveIterator.OfInt it = set.valueIterator();
+		StringBuilder text = new StringBuilder();
+		int previous = 0;
+		boolean sorted = true;
+		while (it.hasNext()) {
+			int value = it.nextInt();
+			sorted &= n == 0 || value > previous;
+			previous = value;
+			expected[n++] = value;
+			assertTrue("member " + value, set.containsValue(value));
+		}
+		assertTrue("iterator", sorted && n == set.size());
+		int[] count = new int[1];
+		set.forEach(value -> assertTrue("forEach " + value, expected[count[0]++] == value));
+		assertTrue("forEach", count[0] == n);
+		assertTrue("stream", Arrays.equals(set.stream().toArray(), expected));
+		assertTrue("parallel stream", Arrays.equals(set.stream().parallel().toArray(), expected)
+				&& set.stream().parallel().asLongStream().sum() == Arrays.stream(expected).asLongStream().sum());
+		assertTrue("empty", !new MySet().valueIterator().hasNext() && new MySet().stream().count() == 0);
+		java.util.Spliterator.OfInt split = set.spliterator();
+		int[] seen = new int[n];
+		int[] position = new int[1];
+		split.tryAdvance((int value) -> seen[position[0]++] = value);
+		set.removeNumber(expected[n - 1]);
+		set.addNumber(expected[n - 1] + 1);
+		set.clear();
+		long remaining = split.estimateSize();
+		split.forEachRemaining((int value) -> seen[position[0]++] = value);
+		assertTrue("spliterator unaffected by writes", Arrays.equals(seen, expected) && remaining == n - 1);
+	}
+
+	@Test
+	public void testOrderQueries() {
+		MySet set = readFileToMySet(ENS1);
+		set.addRange(-3000, -2000);
+		set.addNumber(Integer.MIN_VALUE);
+		set.addNumber(Integer.MAX_VALUE);
+		int[] values = set.stream().toArray();
+		assertTrue("first/last", set.first() == Integer.MIN_VALUE && set.last() == Integer.MAX_VALUE);
+		for (int k = 0; k < values.length; ++k) {
+			assertTrue("select " + k, set.select(k) == values[k] && set.rank(values[k]) == k + 1);
+		}
+		Random random = new Random(20);
+		for (int probe = 0; probe < 2000; ++probe) {
+			int x = probe < 1000 ? random.nextInt(40000) - 4000 : random.nextInt();
+			int i = Arrays.binarySearch(values, x);
+			int below = i >= 0 ? i + 1 : -i - 1;
+			assertTrue("rank " + x, set.rank(x) == below);
+			assertTrue("ceiling " + x, set.ceiling(x).getAsInt() == values[i >= 0 ? i : below]);
+			assertTrue("floor " + x, set.floor(x).getAsInt() == values[i >= 0 ? i : below - 1]);
+			assertTrue("higher " + x, set.higher(x).getAsInt() == values[i >= 0 ? i + 1 : below]);
+			assertTrue("lower " + x, set.lower(x).getAsInt() == values[i >= 0 ? i - 1 : below - 1]);
+		}
+		assertTrue("bounds", !set.higher(Integer.MAX_VALUE).isPresent() && !set.lower(Integer.MIN_VALUE).isPresent());
+		set.removeNumber(Integer.MAX_VALUE);
+		set.addNumber(-5000);
+		assertTrue("after modification", set.last() == values[values.length - 2] && set.select(1) == -5000
+				&& set.rank(-5000) == 2);
+		MySet empty = new MySet();
+		assertTrue("empty", empty.rank(0) == 0 && !empty.ceiling(0).isPresent() && !empty.floor(0).isPresent());
+	}
+
+	@Test
+	public void testOrderQueriesAfterWrites() {
+		MySet set = readFileToMySet(ENS1);
+		MySet other = readFileToMySet(ENS0);
+		Random random = new Random(21);
+		for (int step = 0; step < 200; ++step) {
+			int x = random.nextInt(40000) - 4000;
+			switch (random.nextInt(6)) {
+			case 0:
+				set.addNumber(x);
+				break;
+			case 1:
+				set.removeNumber(set.select(random.nextInt(set.size())));
+				break;
+			case 2:
+				set.addRange(x, x + random.nextInt(600));
+				break;
+			case 3:
+				set.removeRange(x, x + random.nextInt(600));
+				break;
+			case 4:
+				set.symmetricDifference(other);
+				break;
+			default:
+				removeFirst(set);
+			}
+			int[] values = set.stream().toArray();
+			int k = random.nextInt(values.length);
+			int i = Arrays.binarySearch(values, x);
+			assertTrue("order after write " + step, set.select(k) == values[k]
+					&& set.rank(x) == (i >= 0 ? i + 1 : -i - 1) && set.last() == values[values.length - 1]);
+		}
+		MetricsSink.Counter allocations = MetricsSink.Counter.SUBSET_ALLOCATIONS;
+		JmxMetricsSink sink = new JmxMetricsSink();
+		int value = 100;
+		set.addRange(0, 255);
+		set.removeNumber(value);
+		long rank = set.rank(value);
+		Metrics.enable(sink);
+		try {
+			set.addNumber(value);
+		} finally {
+			Metrics.disable();
+		}
+		assertTrue("no copy after a query", sink.counter(allocations) == 0 && set.rank(value) == rank + 1);
+	}
+
+	@Test
+	public void testInsertionAtBothEnds() {
+		MySet set = new MySet();
+		set.addRange(0, (1 << 20) - 1);
+		JmxMetricsSink sink = new JmxMetricsSink();
+		Metrics.enable(sink);
+		try {
+			set.addNumber(-1);
+			set.addNumber(1 << 24);
+			set.addNumber(-1000);
+		} finally {
+			Metrics.disable();
+		}
+		assertTrue("no walk at the ends", sink.counter(MetricsSink.Counter.TRAVERSALS) == 0
+				&& set.first() == -1000 && set.last() == 1 << 24 && set.size() == (1 << 20) + 3);
+	}
+
+	@Test
+	public void testMetrics() throws Exception {
+		JmxMetricsSink sink = new JmxMetricsSink();
+		ObjectName name = sink.register(JmxMetricsSink.DEFAULT_NAME + ",name=test");
+		MySet set = new MySet();
+		Metrics.enable(sink);
+		try {
+			set.addNumber(10);
+			set.addNumber(1000);
+			set.addNumber(11);
+			set.containsValue(10);
+			set.removeNumber(1000);
+			set.union(readFileToMySet(ENS1));
+			set.intersection(set.or(new MySet()));
+		} finally {
+			Metrics.disable();
+		}
+		set.addNumber(5000);
+		assertTrue("counts", sink.count(MetricsSink.Operation.ADD) == 3
+				&& sink.count(MetricsSink.Operation.REMOVE) == 1
+				&& sink.count(MetricsSink.Operation.CONTAINS) == 1
+				&& sink.count(MetricsSink.Operation.UNION) == 2
+				&& sink.count(MetricsSink.Operation.INTERSECTION) == 1);
+		assertTrue("counters", sink.counter(MetricsSink.Counter.SUBSET_ALLOCATIONS) >= 2
+				&& sink.counter(MetricsSink.Counter.SUBSET_REMOVALS) == 1
+				&& sink.counter(MetricsSink.Counter.TRAVERSALS) > 0);
+		long p99 = sink.percentileNanos(MetricsSink.Operation.ADD, 0.99);
+		assertTrue("latency", p99 > 0 && p99 >= sink.percentileNanos(MetricsSink.Operation.ADD, 0.5));
+		MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+		CompositeData adds = ((TabularData) server.getAttribute(name, "OperationCounts"))
+				.get(new Object[] { "ADD" });
+		assertTrue("jmx", (Long) adds.get("value") == 3);
+		server.invoke(name, "reset", null, null);
+		assertTrue("reset", sink.count(MetricsSink.Operation.ADD) == 0);
+		server.unregisterMBean(name);
+	}
+
+	@Test
+	public void testDeltaTracking() {
+		MySet set = readFileToMySet(ENS1);
+		set.startTracking();
+		MySet replica = readFileToMySet(ENS1);
+		assertTrue("no change", set.delta().isEmpty());
+		set.addNumber(50000);
+		set.addNumber(50001);
+		set.removeNumber(50001);
+		set.addRange(-600, -1);
+		set.removeRange(0, 2000);
+		set.union(readFileToMySet(ENS0));
+		set.intersection(set.or(readFileToMySet(ENS3)));
+		set.symmetricDifference(readFileToMySet(TEST_U01));
+		set.unionParallel(readFileToMySet(TEST_D01), new ForkJoinPool(2));
+		MySetDelta delta = set.checkpoint();
+		replica.applyDelta(delta);
+		assertTrue("replay", compareMySets(replica, set) && replica.size() == set.size());
+		assertTrue("delta", delta.added().containsValue(50000) && !delta.added().containsValue(50001)
+				&& delta.added().containsValue(-1));
+		set.removeNumber(50000);
+		set.addNumber(50000);
+		set.addNumber(-70000);
+		delta = set.checkpoint();
+		assertTrue("net changes", delta.size() == 1 && delta.added().containsValue(-70000));
+		replica.applyDelta(delta);
+		set.clear();
+		set.addNumber(1);
+		replica.applyDelta(set.delta());
+		assertTrue("clear", compareMySets(replica, set));
+		Iterator<SubSet> it = set.iterator();
+		it.remove();
+		boolean lost = false;
+		try {
+			set.delta();
+		} catch (IllegalStateException e) {
+			lost = true;
+		}
+		set.stopTracking();
+		assertTrue("external modification", lost && !set.isTracking());
+	}
+
+	@Test
+	public void testExpression() {
+		MySet a = readFileToMySet(ENS1);
+		MySet b = readFileToMySet(TEST_U01);
+		MySet c = readFileToMySet(ENS3);
+		MySet d = readFileToMySet(TEST_D01);
+		MySetExpression expression = MySetExpression.of(a).union(b).intersection(c).difference(d);
+		MySet expected = a.or(b).and(c).andNot(d);
+		MySet result = expression.evaluate();
+		assertTrue("evaluate", compareMySets(result, expected) && result.size() == expected.size());
+		assertTrue("size", expression.size() == expected.size() && expression.isEmpty() == expected.isEmpty());
+		boolean contained = true;
+		for (int value = -300; value < 70000; value += 7) {
+			contained = contained && expression.containsValue(value) == expected.containsValue(value);
+		}
+		assertTrue("containsValue", contained);
+		result.addNumber(123456);
+		assertConstness("leaf", a, ENS1);
+		assertConstness("leaf", c, ENS3);
+		MySetExpression xor = MySetExpression.of(a).symmetricDifference(b).symmetricDifference(c);
+		assertTrue("symmetric difference", compareMySets(xor.evaluate(), a.xor(b).xor(c)));
+		assertTrue("same leaf", compareMySets(MySetExpression.of(a).intersection(a).evaluate(), a)
+				&& MySetExpression.of(a).difference(a).isEmpty());
+		assertTrue("empty intersection", MySetExpression.of(a).intersection(new MySet()).union(new MySet()).isEmpty());
+		a.addNumber(-5000);
+		assertTrue("later evaluation", MySetExpression.of(a).union(b).containsValue(-5000));
+	}
+
+	@Test
+	public void testResultCache() {
+		MySet a = readFileToMySet(ENS1);
+		MySet b = readFileToMySet(TEST_U01);
+		MySet c = readFileToMySet(ENS3);
+		MySetCache cache = new MySetCache();
+		MySetSnapshot result = cache.intersection(a, b);
+		assertTrue("computed", compareMySets(result.toMySet(), a.and(b)) && cache.missCount() == 1);
+		assertTrue("commutative hit", cache.intersection(b, a) == result && cache.hitCount() == 1);
+		assertTrue("difference", compareMySets(cache.difference(b, a).toMySet(), b.andNot(a))
+				&& compareMySets(cache.difference(a, b).toMySet(), a.andNot(b)) && cache.size() == 3);
+		int version = a.version();
+		a.addNumber(b.select(0));
+		assertTrue("version", a.version() != version);
+		result = cache.intersection(a, b);
+		assertTrue("invalidated", cache.invalidationCount() == 1 && compareMySets(result.toMySet(), a.and(b))
+				&& result.containsValue(b.select(0)));
+		Iterator<SubSet> it = a.iterator();
+		it.remove();
+		assertTrue("external modification", cache.intersection(a, b) != result && cache.invalidationCount() == 2);
+
+		a = readFileToMySet(ENS1);
+		MySetCache small = new MySetCache();
+		MySetSnapshot union = small.union(a, b);
+		small = new MySetCache(2 * small.weight() + 100);
+		union = small.union(a, b);
+		small.union(a, c);
+		small.union(a, b);
+		small.union(b, c);
+		assertTrue("evictions", small.evictionCount() > 0 && small.weight() <= small.maxBytes());
+		assertTrue("lru", small.union(b, a) == union && small.size() == 2 && small.hitCount() == 2);
+		assertTrue("statistics", small.hitRate() > 0 && small.hitRate() < 1);
+		small.clear();
+		assertTrue("clear", small.size() == 0 && small.weight() == 0);
+	}
+
+	@Test
+	public void testResultCacheThreads() throws Exception {
+		MySet[] sets = { readFileToMySet(ENS0), readFileToMySet(ENS1), readFileToMySet(ENS3),
+				readFileToMySet(TEST_U01) };
+		MySet[][] unions = new MySet[sets.length][sets.length];
+		MySet[][] differences = new MySet[sets.length][sets.length];
+		for (int i = 0; i < sets.length; ++i) {
+			for (int j = 0; j < sets.length; ++j) {
+				unions[i][j] = sets[i].or(sets[j]);
+				differences[i][j] = sets[i].andNot(sets[j]);
+			}
+		}
+		MySetCache cache = new MySetCache(1 << 14);
+		java.util.concurrent.ExecutorService pool = java.util.concurrent.Executors.newFixedThreadPool(4);
+		try {
+			java.util.List<java.util.concurrent.Future<Boolean>> results = new java.util.ArrayList<>();
+			for (int t = 0; t < 4; ++t) {
+				int seed = t;
+				results.add(pool.submit(() -> {
+					Random random = new Random(seed);
+					boolean ok = true;
+					for (int call = 0; call < 200; ++call) {
+						int i = random.nextInt(sets.length);
+						int j = random.nextInt(sets.length);
+						ok &= random.nextBoolean()
+								? compareMySets(cache.union(sets[i], sets[j]).toMySet(), unions[i][j])
+								: compareMySets(cache.difference(sets[i], sets[j]).toMySet(), differences[i][j]);
+					}
+					return ok;
+				}));
+			}
+			for (java.util.concurrent.Future<Boolean> result : results) {
+				assertTrue("threads", result.get());
+			}
+		} finally {
+			pool.shutdown();
+		}
+		assertTrue("counts", cache.hitCount() + cache.missCount() == 800 && cache.weight() <= cache.maxBytes());
+	}
+
+	@Test
+	public void testResultCacheCollectedOperand() {
+		MySet b = readFileToMySet(TEST_U01);
+		MySetCache cache = new MySetCache();
+		cache.union(b, b);
+		long weight = cache.weight();
+		cache.union(readFileToMySet(ENS1), b);
+		for (int i = 0; i < 20 && cache.size() > 1; ++i) {
+			System.gc();
+		}
+		assertTrue("collected operand", cache.size() == 1 && cache.weight() == weight);
+		cache.union(b, b);
+		assertTrue("live operand kept", cache.hitCount() == 1);
+	}
+
+	@Test
+	public void testDurableMySet() throws IOException {
+		Path directory = Files.createTempDirectory("test-durable");
+		try {
+			MySet expected = readFileToMySet(ENS1);
+			DurableMySet set = DurableMySet.open(directory, 4, 1 << 20);
+			set.union(readFileToMySet(ENS1));
+			set.addNumber(50000);
+			set.removeNumber(100);
+			set.addRange(-600, -1);
+			set.removeRange(0, 50);
+			set.symmetricDifference(readFileToMySet(TEST_U01));
+			expected.addNumber(50000);
+			expected.removeNumber(100);
+			expected.addRange(-600, -1);
+			expected.removeRange(0, 50);
+			expected.symmetricDifference(readFileToMySet(TEST_U01));
+			set.sync();
+			set.close();
+			Path log = directory.resolve("log-0.wal");
+			long length = Files.size(log);
+			Files.write(log, new byte[] { 0, 0, 0, 5, 1, 0 }, StandardOpenOption.APPEND);
+			set = DurableMySet.open(directory);
+			assertTrue("replay", compareMySets(set.snapshot().toMySet(), expected) && set.size() == expected.size());
+			assertTrue("torn record", Files.size(log) == length);
+			set.checkpoint();
+			set.intersection(readFileToMySet(ENS3));
+			expected.intersection(readFileToMySet(ENS3));
+			set.close();
+			set = DurableMySet.open(directory, 1, 64);
+			assertTrue("checkpoint", compareMySets(set.snapshot().toMySet(), expected));
+			try (Stream<Path> files = Files.list(directory)) {
+				assertTrue("old generation removed", files.count() == 2 && Files.exists(directory.resolve("snapshot-1.bin")));
+			}
+			for (int value = 0; value < 100; ++value) {
+				set.addNumber(value);
+				expected.addNumber(value);
+			}
+			set.close();
+			assertTrue("automatic checkpoint", Files.notExists(directory.resolve("snapshot-1.bin")));
+			set = DurableMySet.open(directory);
+			assertTrue("reopen", compareMySets(set.snapshot().toMySet(), expected));
+			set.close();
+		} finally {
+			try (Stream<Path> files = Files.list(directory)) {
+				for (Path file : (Iterable<Path>) files::iterator) {
+					Files.delete(file);
+				}
+			}
+			Files.delete(directory);
+		}
+	}
+
+	/**
+	 * @return petit ensemble des valeurs de [0, 255] telles que member[i]
+	 */
+	private static SmallBitmap smallBitmap(boolean[] member) {
+		SmallBitmap set = new SmallBitmap();
+		for (int i = 0; i < SmallBitmap.SET_SIZE; ++i) {
+			if (member[i]) {
+				set.add(i);
+			}
+		}
+		return set;
+	}
+
+	@Test
+	public void testAdaptiveSubSets() {
+		boolean[][] members = new boolean[4][SmallBitmap.SET_SIZE];
+		members[0][7] = true;
+		members[0][200] = true;
+		Arrays.fill(members[1], 10, 250, true);
+		for (int i = 0; i < SmallBitmap.SET_SIZE; i += 3) {
+			members[2][i] = true;
+		}
+		Arrays.fill(members[3], 0, 40, true);
+		members[3][100] = true;
+		boolean ok = true;
+		for (boolean[] m1 : members) {
+			for (boolean[] m2 : members) {
+				for (int op = 0; op < 4; ++op) {
+					SmallBitmap set = smallBitmap(m1);
+					SmallBitmap set2 = smallBitmap(m2);
+					boolean[] expected = new boolean[SmallBitmap.SET_SIZE];
+					int size = 0;
+					for (int i = 0; i < SmallBitmap.SET_SIZE; ++i) {
+						expected[i] = op == 0 ? m1[i] || m2[i]
+								: op == 1 ? m1[i] && m2[i] : op == 2 ? m1[i] && !m2[i] : m1[i] != m2[i];
+						size += expected[i] ? 1 : 0;
+					}
+					if (op == 0) {
+						set.union(set2);
+					} else if (op == 1) {
+						set.intersection(set2);
+					} else if (op == 2) {
+						set.difference(set2);
+					} else {
+						set.symmetricDifference(set2);
+					}
+					ok = ok && set.size() == size && set.equals(smallBitmap(expected))
+							&& set.hashCode() == smallBitmap(expected).hashCode() && set2.equals(smallBitmap(m2));
+				}
+			}
+		}
+		assertTrue("adaptive subsets", ok);
+	}
+
 	@Test
 	public void testAddTail() {
 		MySet mySet1 = new MySet();